@@ -0,0 +1,62 @@
+package io.kestra.plugin.nats;
+
+import java.time.Duration;
+
+/**
+ * Adapt the size and the wait of the next fetch to the traffic observed on the previous ones.
+ * <p>
+ * Full batches double the batch size up to {@code maxBatchSize}, since more messages are likely waiting.
+ * Empty batches halve it back toward {@code minBatchSize} and double the wait up to {@code maxWait}, so an idle consumer
+ * issues fewer pull requests. Any message resets the wait to {@code minWait}.
+ */
+final class AdaptiveFetch {
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final Duration minWait;
+
+    private final Duration maxWait;
+
+    private int batchSize;
+
+    private Duration wait;
+
+    AdaptiveFetch(int minBatchSize, int maxBatchSize, Duration minWait, Duration maxWait) {
+        if (maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("The max batch size must be greater than or equal to the batch size");
+        }
+
+        if (maxWait.compareTo(minWait) < 0) {
+            throw new IllegalArgumentException("The max fetch wait must be greater than or equal to the min fetch wait");
+        }
+
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.minWait = minWait;
+        this.maxWait = maxWait;
+        this.batchSize = minBatchSize;
+        this.wait = minWait;
+    }
+
+    int batchSize() {
+        return batchSize;
+    }
+
+    Duration waitTime() {
+        return wait;
+    }
+
+    void onFetch(int received) {
+        if (received >= batchSize) {
+            batchSize = (int) Math.min(maxBatchSize, batchSize * 2L);
+            wait = minWait;
+        } else if (received == 0) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+            Duration doubled = wait.multipliedBy(2);
+            wait = doubled.compareTo(maxWait) > 0 ? maxWait : doubled;
+        } else {
+            wait = minWait;
+        }
+    }
+}
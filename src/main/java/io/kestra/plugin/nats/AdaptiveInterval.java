@@ -0,0 +1,100 @@
+package io.kestra.plugin.nats;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adapt the interval between two runs of a polling {@link Trigger} to the backlog observed on the previous run.
+ * <p>
+ * The trigger is evaluated every {@code minInterval}, and an evaluation only runs once the current interval has elapsed
+ * since the previous run. A backlog left on the consumer halves the interval down to {@code minInterval}, an empty run
+ * doubles it up to {@code maxInterval}, and a run that drained the consumer goes back to {@code baseInterval}.
+ * <p>
+ * Intervals are kept in a worker-level registry keyed by trigger, and dropped once they have not been used for 3 max
+ * intervals, for example when the trigger is disabled or its flow deleted. The registry is not shared between workers,
+ * so the interval assumes a single worker evaluates the trigger; each additional worker runs on its own interval.
+ */
+final class AdaptiveInterval {
+    private static final Map<String, AdaptiveInterval> INTERVALS = new ConcurrentHashMap<>();
+
+    private final Duration minInterval;
+
+    private final Duration baseInterval;
+
+    private final Duration maxInterval;
+
+    private Duration current;
+
+    private Instant lastRun;
+
+    private volatile Instant lastEvaluation;
+
+    AdaptiveInterval(Duration minInterval, Duration baseInterval, Duration maxInterval) {
+        if (baseInterval.compareTo(minInterval) < 0) {
+            throw new IllegalArgumentException("The interval must be greater than or equal to the min interval");
+        }
+
+        if (maxInterval.compareTo(baseInterval) < 0) {
+            throw new IllegalArgumentException("The max interval must be greater than or equal to the interval");
+        }
+
+        this.minInterval = minInterval;
+        this.baseInterval = baseInterval;
+        this.maxInterval = maxInterval;
+        this.current = baseInterval;
+    }
+
+    /**
+     * Get the interval registered for the given trigger, replaced when its bounds changed.
+     */
+    static AdaptiveInterval of(String key, Duration minInterval, Duration baseInterval, Duration maxInterval, Instant now) {
+        INTERVALS.values().removeIf(interval -> interval.isIdle(now));
+
+        AdaptiveInterval adaptiveInterval = INTERVALS.compute(key, (k, existing) -> {
+            if (existing != null &&
+                existing.minInterval.equals(minInterval) &&
+                existing.baseInterval.equals(baseInterval) &&
+                existing.maxInterval.equals(maxInterval)
+            ) {
+                return existing;
+            }
+
+            return new AdaptiveInterval(minInterval, baseInterval, maxInterval);
+        });
+        adaptiveInterval.lastEvaluation = now;
+
+        return adaptiveInterval;
+    }
+
+    private boolean isIdle(Instant now) {
+        return lastEvaluation != null && now.isAfter(lastEvaluation.plus(maxInterval.multipliedBy(3)));
+    }
+
+    /**
+     * Whether the current interval has elapsed since the previous run. Evaluations are scheduled every
+     * {@code minInterval}, so half of it is tolerated to not skip an evaluation scheduled slightly early.
+     */
+    synchronized boolean isDue(Instant now) {
+        return lastRun == null || !now.isBefore(lastRun.plus(current).minus(minInterval.dividedBy(2)));
+    }
+
+    synchronized void onRun(Instant now, int messagesCount, long pendingCount) {
+        lastRun = now;
+
+        if (pendingCount > 0) {
+            Duration halved = current.dividedBy(2);
+            current = halved.compareTo(minInterval) < 0 ? minInterval : halved;
+        } else if (messagesCount == 0) {
+            Duration doubled = current.multipliedBy(2);
+            current = doubled.compareTo(maxInterval) > 0 ? maxInterval : doubled;
+        } else {
+            current = baseInterval;
+        }
+    }
+
+    synchronized Duration current() {
+        return current;
+    }
+}
@@ -1,15 +1,14 @@
 package io.kestra.plugin.nats;
 
-import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Plugin;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
-import io.kestra.core.serializers.FileSerde;
 import io.nats.client.*;
 import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.ConsumerInfo;
 import io.nats.client.api.DeliverPolicy;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
@@ -17,15 +16,19 @@ import lombok.experimental.SuperBuilder;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static io.kestra.core.utils.Rethrow.throwConsumer;
-import static io.kestra.core.utils.Rethrow.throwFunction;
+import static io.kestra.core.utils.Rethrow.throwCallable;
 
 @SuperBuilder
 @ToString
@@ -58,9 +61,31 @@ import static io.kestra.core.utils.Rethrow.throwFunction;
                     pollDuration: PT5S
                 """
         ),
+        @Example(
+            title = "Consume JSON messages from the kestra.> subjects, acknowledging them once stored in the internal storage.",
+            full = true,
+            code = """
+                id: nats_consume_json_messages
+                namespace: company.team
+
+                tasks:
+                  - id: consume
+                    type: io.kestra.plugin.nats.Consume
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_password
+                    subject: kestra.>
+                    durableId: someDurableId
+                    dataFormat: JSON
+                    ackMode: AFTER_STORE
+                    batchSize: 500
+                """
+        ),
     }
 )
 public class Consume extends NatsConnection implements RunnableTask<Consume.Output>, ConsumeInterface, SubscribeInterface {
+    // time left to store the output file after the max duration, before the messages are redelivered
+    private static final Duration AFTER_STORE_ACK_WAIT_MARGIN = Duration.ofSeconds(30);
 
     private String subject;
 
@@ -81,82 +106,328 @@ public class Consume extends NatsConnection implements RunnableTask<Consume.Outp
     @Builder.Default
     private Property<DeliverPolicy> deliverPolicy = Property.of(DeliverPolicy.All);
 
-    public Output run(RunContext runContext) throws Exception {
-        Connection connection = connect(runContext);
-        JetStreamSubscription subscription = connection.jetStream(JetStreamOptions.DEFAULT_JS_OPTIONS).subscribe(
-            runContext.render(subject),
-            PullSubscribeOptions.builder()
-                .configuration(ConsumerConfiguration.builder()
-                    .ackPolicy(AckPolicy.Explicit)
-                    .deliverPolicy(runContext.render(deliverPolicy).as(DeliverPolicy.class).orElseThrow())
-                    .startTime(runContext.render(since).as(String.class).map(ZonedDateTime::parse).orElse(null))
-                    .build())
-                .durable(runContext.render(durableId).as(String.class).orElse(null)).build()
-        );
+    @Builder.Default
+    private Property<AckMode> ackMode = Property.of(AckMode.PER_MESSAGE);
 
-        Instant pollStart = Instant.now();
-        List<Message> messages;
-        AtomicInteger total = new AtomicInteger();
-        File outputFile = runContext.workingDir().createTempFile(".ion").toFile();
-        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile))) {
-            AtomicReference<Integer> maxMessagesRemainingRef = new AtomicReference<>();
-            do {
-                Integer maxMessagesRemaining = runContext.render(maxRecords).as(Integer.class)
-                    .map(max -> max - total.get())
-                    .orElse(null);
+    @Builder.Default
+    private Property<DataFormat> dataFormat = Property.of(DataFormat.BASE64);
 
-                maxMessagesRemainingRef.set(maxMessagesRemaining);
+    @Builder.Default
+    private Property<Boolean> prefetch = Property.of(false);
 
-                batchSize = Optional.ofNullable(maxMessagesRemaining).map(max -> Math.min(batchSize, max)).orElse(batchSize);
-                messages = subscription.fetch(batchSize, runContext.render(pollDuration).as(Duration.class).orElseThrow());
+    @Builder.Default
+    private Property<Integer> concurrency = Property.of(1);
 
-                messages.forEach(throwConsumer(message -> {
-                    Map<Object, Object> map = new HashMap<>();
+    @Builder.Default
+    private Property<Boolean> ordered = Property.of(false);
 
-                    map.put("subject", message.getSubject());
-                    map.put("headers", Map.ofEntries(
-                        Optional.ofNullable(message.getHeaders())
-                            .map(headers -> headers.entrySet().toArray(Map.Entry[]::new))
-                            .orElse(new Map.Entry[0])
-                    ));
-                    map.put("data", Base64.getEncoder().encodeToString(message.getData()));
-                    map.put("timestamp", message.metaData().timestamp().toInstant());
+    @Builder.Default
+    private Property<Boolean> checkPending = Property.of(false);
 
-                    FileSerde.write(output, map);
+    private Property<Long> maxBatchBytes;
 
-                    message.ack();
-                    total.incrementAndGet();
-                }));
-            } while (
-                !isEnded(messages, maxMessagesRemainingRef.get(), pollStart, runContext)
-            );
+    private Property<Duration> ackWait;
+
+    private Property<Integer> maxAckPending;
+
+    public Output run(RunContext runContext) throws Exception {
+        AckMode ackMode = runContext.render(this.ackMode).as(AckMode.class).orElse(AckMode.PER_MESSAGE);
+        int concurrency = runContext.render(this.concurrency).as(Integer.class).orElse(1);
+        String renderedDurableId = runContext.render(durableId).as(String.class).orElse(null);
+        boolean renderedOrdered = runContext.render(ordered).as(Boolean.class).orElse(false);
+
+        if (renderedOrdered && (renderedDurableId != null || concurrency > 1)) {
+            throw new IllegalArgumentException("An ordered consumer is ephemeral and read by a single subscription, it can't be used with a durableId or a concurrency");
+        }
+
+        // with AckPolicy.All, acking a message also acks the lower sequences still held by the other subscriptions
+        if (concurrency > 1 && ackMode != AckMode.PER_MESSAGE) {
+            throw new IllegalArgumentException("Concurrent subscriptions acknowledge each message explicitly, a concurrency can only be used with the PER_MESSAGE ack mode");
+        }
+
+        DeliverPolicy renderedDeliverPolicy = runContext.render(deliverPolicy).as(DeliverPolicy.class).orElseThrow();
+        ConsumerConfiguration.Builder consumerConfiguration = ConsumerConfiguration.builder()
+            .ackPolicy(ackMode == AckMode.PER_MESSAGE ? AckPolicy.Explicit : AckPolicy.All)
+            .deliverPolicy(renderedDeliverPolicy)
+            .startTime(runContext.render(since).as(String.class).map(ZonedDateTime::parse).orElse(null));
+
+        Duration renderedMaxDuration = runContext.render(maxDuration).as(Duration.class).orElse(null);
+        Duration renderedAckWait = runContext.render(ackWait).as(Duration.class).orElse(null);
+        Integer renderedMaxAckPending = runContext.render(maxAckPending).as(Integer.class).orElse(null);
+        if (ackMode == AckMode.AFTER_STORE) {
+            // nothing is acked until the end of the run, the server must neither stop delivering nor redeliver in the meantime
+            if (renderedAckWait == null && renderedMaxDuration != null) {
+                renderedAckWait = renderedMaxDuration.plus(AFTER_STORE_ACK_WAIT_MARGIN);
+            }
+            if (renderedMaxAckPending == null) {
+                renderedMaxAckPending = -1;
+            }
+        }
+        consumerConfiguration
+            .ackWait(renderedAckWait)
+            .maxAckPending(renderedMaxAckPending == null ? null : renderedMaxAckPending.longValue());
+
+        String renderedSubject = runContext.render(subject);
+        boolean renderedPrefetch = runContext.render(prefetch).as(Boolean.class).orElse(false);
+        Long renderedMaxBatchBytes = runContext.render(maxBatchBytes).as(Long.class).orElse(null);
+        if (renderedPrefetch && renderedMaxBatchBytes != null) {
+            throw new IllegalArgumentException("Prefetched pull requests are only bounded by the batch size, they can't be used with a maxBatchBytes");
+        }
+        Drain drain = new Drain(
+            // ordered consumers don't use acknowledgements
+            renderedOrdered ? null : ackMode,
+            runContext.render(dataFormat).as(DataFormat.class).orElse(DataFormat.BASE64),
+            runContext.render(pollDuration).as(Duration.class).orElseThrow(),
+            renderedMaxDuration,
+            runContext.render(maxRecords).as(Integer.class).orElse(null)
+        );
+
+        Connection connection = connect(runContext);
+        List<MessageFetcher> fetchers = new ArrayList<>();
+        try {
+            JetStream jetStream = connection.jetStream(JetStreamOptions.DEFAULT_JS_OPTIONS);
+
+            JetStreamSubscription subscription;
+            if (renderedOrdered) {
+                subscription = jetStream.subscribe(
+                    renderedSubject,
+                    PushSubscribeOptions.builder()
+                        .ordered(true)
+                        .configuration(ConsumerConfiguration.builder()
+                            .deliverPolicy(renderedDeliverPolicy)
+                            .startTime(runContext.render(since).as(String.class).map(ZonedDateTime::parse).orElse(null))
+                            .build())
+                        .build()
+                );
+                fetchers.add(MessageFetcher.push(subscription));
+            } else {
+                subscription = jetStream.subscribe(
+                    renderedSubject,
+                    PullSubscribeOptions.builder()
+                        .configuration(consumerConfiguration.build())
+                        .durable(renderedDurableId).build()
+                );
+                fetchers.add(fetcher(subscription, renderedPrefetch, renderedMaxBatchBytes));
+            }
+
+            // the first fetch waits a full poll duration when nothing is pending, check the backlog instead;
+            // consumers delivering new messages only have nothing pending on creation, and an ordered consumer is
+            // pushed its messages as soon as it's created, so its counters can already be drained into the client buffer
+            boolean idle = false;
+            if (runContext.render(checkPending).as(Boolean.class).orElse(false) && renderedDeliverPolicy != DeliverPolicy.New && !renderedOrdered) {
+                ConsumerInfo consumerInfo = subscription.getConsumerInfo();
+                idle = consumerInfo.getNumPending() == 0 && consumerInfo.getNumAckPending() == 0;
+                if (idle) {
+                    runContext.logger().debug("No message pending on '{}', skipping the fetch", renderedSubject);
+                }
+            }
+
+            if (concurrency > 1 && !idle) {
+                // bind the other subscriptions to the consumer created by the first one, durable or not
+                PullSubscribeOptions bind = PullSubscribeOptions.bind(
+                    subscription.getConsumerInfo().getStreamName(),
+                    subscription.getConsumerName()
+                );
+                for (int i = 1; i < concurrency; i++) {
+                    JetStreamSubscription bound = jetStream.subscribe(renderedSubject, bind);
+                    fetchers.add(fetcher(bound, renderedPrefetch, renderedMaxBatchBytes));
+                }
+            }
+
+            File outputFile = runContext.workingDir().createTempFile(".ion").toFile();
+            if (idle) {
+                // nothing to drain, store an empty file
+            } else if (concurrency == 1) {
+                drain(fetchers.getFirst(), outputFile, drain);
+            } else {
+                List<File> workerFiles = new ArrayList<>();
+                try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                    List<Future<?>> workers = new ArrayList<>();
+                    for (MessageFetcher fetcher : fetchers) {
+                        File workerFile = runContext.workingDir().createTempFile(".ion").toFile();
+                        workerFiles.add(workerFile);
+                        workers.add(executor.submit(throwCallable(() -> {
+                            drain(fetcher, workerFile, drain);
+                            return null;
+                        })));
+                    }
+
+                    for (Future<?> worker : workers) {
+                        try {
+                            worker.get();
+                        } catch (ExecutionException e) {
+                            throw e.getCause() instanceof Exception cause ? cause : e;
+                        }
+                    }
+                }
+
+                // Ion records are newline separated, the worker files can simply be appended to each other
+                try (OutputStream output = new BufferedOutputStream(new FileOutputStream(outputFile))) {
+                    for (File workerFile : workerFiles) {
+                        Files.copy(workerFile.toPath(), output);
+                        Files.delete(workerFile.toPath());
+                    }
+                }
+            }
+
+            // give prefetched messages back before acknowledging the stored ones
+            for (MessageFetcher fetcher : fetchers) {
+                fetcher.close();
+            }
+
+            URI uri = runContext.storage().putFile(outputFile);
+
+            // AckPolicy.All, acking the message with the highest sequence acknowledges everything stored in the file
+            if (drain.ackMode == AckMode.AFTER_STORE && drain.lastMessage.get() != null) {
+                drain.lastMessage.get().ackSync(drain.pollDuration);
+            }
+
+            return Output.builder()
+                .messagesCount(drain.total.get())
+                .uri(uri)
+                .pendingCount(Optional.ofNullable(drain.lastMessage.get()).map(message -> message.metaData().pendingCount()).orElse(0L))
+                .build();
+        } catch (Exception e) {
+            // redeliver the messages now, a later run acking past them before their ack wait would lose them
+            if (drain.ackMode == AckMode.AFTER_STORE) {
+                drain.written.nak(connection);
+            }
+            throw e;
         } finally {
+            for (MessageFetcher fetcher : fetchers) {
+                fetcher.close();
+            }
             connection.close();
         }
+    }
+
+    private MessageFetcher fetcher(JetStreamSubscription subscription, boolean prefetch, Long maxBatchBytes) {
+        if (prefetch) {
+            return MessageFetcher.prefetch(subscription, batchSize);
+        }
 
-        return Output.builder()
-            .messagesCount(total.get())
-            .uri(runContext.storage().putFile(outputFile))
-            .build();
+        return maxBatchBytes == null ? MessageFetcher.pull(subscription) : MessageFetcher.pull(subscription, maxBatchBytes);
+    }
+
+    private void drain(MessageFetcher fetcher, File file, Drain drain) throws Exception {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            MessageRecordWriter writer = new MessageRecordWriter(output, drain.dataFormat);
+            List<Message> messages;
+            do {
+                int reserved = drain.reserve(batchSize);
+                if (reserved == 0) {
+                    break;
+                }
+
+                messages = fetcher.fetch(reserved, drain.pollDuration);
+                drain.unreserve(reserved - messages.size());
+
+                for (Message message : messages) {
+                    writer.write(message);
+
+                    if (drain.ackMode == AckMode.PER_MESSAGE) {
+                        message.ack();
+                    } else if (drain.ackMode == AckMode.AFTER_STORE) {
+                        drain.written.add(message);
+                    }
+                    drain.written(message);
+                }
+
+                // AckPolicy.All, acking the last message acknowledges the whole batch
+                if (drain.ackMode == AckMode.PER_BATCH && !messages.isEmpty()) {
+                    messages.getLast().ack();
+                }
+            } while (
+                !isEnded(messages, drain)
+            );
+        }
     }
 
     @SuppressWarnings("RedundantIfStatement")
-    private boolean isEnded(List<Message> messages, Integer maxMessagesRemaining, Instant pollStart, RunContext runContext) throws IllegalVariableEvaluationException {
+    private boolean isEnded(List<Message> messages, Drain drain) {
         if (messages.isEmpty()) {
             return true;
         }
 
-        if (Optional.ofNullable(maxMessagesRemaining).map(max -> max <= 0).orElse(false)) {
+        if (drain.remaining != null && drain.remaining.get() <= 0) {
             return true;
         }
 
-        if (runContext.render(maxDuration).as(Duration.class).map(max -> Instant.now().isBefore(pollStart.plus(max))).orElse(false)) {
+        if (drain.maxDuration != null && !Instant.now().isBefore(drain.pollStart.plus(drain.maxDuration))) {
             return true;
         }
 
         return false;
     }
 
+    /**
+     * State of a drain, shared by the concurrent workers.
+     */
+    private static class Drain {
+        private final AckMode ackMode;
+        private final DataFormat dataFormat;
+        private final Duration pollDuration;
+        private final Duration maxDuration;
+        private final Instant pollStart = Instant.now();
+        private final AtomicInteger remaining;
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicReference<Message> lastMessage = new AtomicReference<>();
+        private final PendingAcks written = new PendingAcks();
+
+        private Drain(AckMode ackMode, DataFormat dataFormat, Duration pollDuration, Duration maxDuration, Integer maxRecords) {
+            this.ackMode = ackMode;
+            this.dataFormat = dataFormat;
+            this.pollDuration = pollDuration;
+            this.maxDuration = maxDuration;
+            this.remaining = maxRecords == null ? null : new AtomicInteger(maxRecords);
+        }
+
+        /**
+         * Reserve up to {@code batchSize} records of the {@code maxRecords} budget, so concurrent workers never fetch
+         * more than allowed.
+         */
+        private int reserve(int batchSize) {
+            if (remaining == null) {
+                return batchSize;
+            }
+
+            int current;
+            int reserved;
+            do {
+                current = remaining.get();
+                reserved = Math.max(0, Math.min(batchSize, current));
+            } while (reserved > 0 && !remaining.compareAndSet(current, current - reserved));
+
+            return reserved;
+        }
+
+        private void unreserve(int unused) {
+            if (remaining != null && unused > 0) {
+                remaining.addAndGet(unused);
+            }
+        }
+
+        private void written(Message message) {
+            total.incrementAndGet();
+            lastMessage.accumulateAndGet(message, (last, current) ->
+                last == null || current.metaData().streamSequence() > last.metaData().streamSequence() ? current : last
+            );
+        }
+    }
+
+    public enum DataFormat {
+        BASE64,
+        STRING,
+        JSON,
+        BYTES
+    }
+
+    public enum AckMode {
+        PER_MESSAGE,
+        PER_BATCH,
+        AFTER_STORE
+    }
+
     @Builder
     @Getter
     public static class Output implements io.kestra.core.models.tasks.Output {
@@ -171,6 +442,11 @@ public class Consume extends NatsConnection implements RunnableTask<Consume.Outp
         )
         private URI uri;
 
+        @Schema(
+            title = "Number of messages left on the consumer when the last message was received."
+        )
+        private Long pendingCount;
+
     }
 
 
@@ -29,4 +29,78 @@ public interface ConsumeInterface {
     )
     @NotNull
     Property<Duration> getPollDuration();
+
+    @Schema(
+        title = "When to acknowledge the consumed messages",
+        description = "Possible settings are:\n" +
+            "- `PER_MESSAGE`: The default mode. Each message is acknowledged once written, using an explicit ack policy.\n" +
+            "- `PER_BATCH`: Only the last message of each fetched batch is acknowledged, using the `All` ack policy, so a batch costs a single acknowledgement.\n" +
+            "- `AFTER_STORE`: Only the last message is acknowledged, using the `All` ack policy, once the output file is stored in the internal storage. " +
+            "This guarantees at-least-once delivery: when a run fails, the messages it consumed are negatively acknowledged and delivered again. " +
+            "The consumer `ackWait` must be longer than the whole run, otherwise messages are redelivered during the run.\n" +
+            "Note that the ack policy of an existing durable consumer can't be changed, switching between `PER_MESSAGE` and the other modes requires a new `durableId`."
+    )
+    Property<Consume.AckMode> getAckMode();
+
+    @Schema(
+        title = "How the message data is written in the output file",
+        description = "Possible settings are:\n" +
+            "- `BASE64`: The default format. The data is encoded as a Base64 string.\n" +
+            "- `STRING`: The data is decoded as an UTF-8 string.\n" +
+            "- `JSON`: The data is parsed as JSON, the record holds the parsed value, or the UTF-8 string when the data is not valid JSON.\n" +
+            "- `BYTES`: The data is written as raw bytes."
+    )
+    Property<Consume.DataFormat> getDataFormat();
+
+    @Schema(
+        title = "Prefetch the next batch while the current one is written",
+        description = "If true, a new pull request of `batchSize` messages is issued as soon as half of the previous one " +
+            "has been received, keeping the server sending while messages are written to the output file. " +
+            "Prefetched messages that are not consumed when the polling stops are handed back to the server for redelivery."
+    )
+    Property<Boolean> getPrefetch();
+
+    @Schema(
+        title = "Number of subscriptions draining the consumer in parallel",
+        description = "Each subscription is bound to the same consumer and fetches on its own virtual thread into its own file, " +
+            "the files are then appended into the output file, so messages are only ordered within a subscription. " +
+            "Only available with `PER_MESSAGE` acknowledgements: with the `All` ack policy of the other modes, an acknowledgement " +
+            "would also cover the messages still held by the other subscriptions."
+    )
+    @Min(1)
+    Property<Integer> getConcurrency();
+
+    @Schema(
+        title = "Check the consumer backlog before fetching, and stop right away when no message is pending",
+        description = "Saves the wait of a full `pollDuration` on the first fetch when the consumer has nothing to deliver, " +
+            "at the cost of one request to the server. Messages published during that poll duration are then left " +
+            "for the next consumption. Not applied with the `New` deliver policy, whose consumers have nothing pending " +
+            "when created, nor with `ordered` consumers, which are pushed their messages as soon as they are created."
+    )
+    Property<Boolean> getCheckPending();
+
+    @Schema(
+        title = "The max size of the messages fetched at once, in bytes",
+        description = "Bounds each pull request by size as well as by `batchSize`, so that the memory used by a fetch " +
+            "does not depend on the payload size. It must be greater than the largest message, which would otherwise " +
+            "never be delivered. Not used with ordered consumers, and can't be used with `prefetch`."
+    )
+    @Min(1)
+    Property<Long> getMaxBatchBytes();
+
+    @Schema(
+        title = "The duration the server waits for a message to be acknowledged before redelivering it",
+        description = "By default, the server ack wait applies, 30 seconds unless configured otherwise. With the " +
+            "`AFTER_STORE` ack mode and a `maxDuration`, it defaults to the `maxDuration` plus 30 seconds to store the file. " +
+            "Not used with ordered consumers."
+    )
+    Property<Duration> getAckWait();
+
+    @Schema(
+        title = "The max number of messages delivered and not acknowledged yet",
+        description = "The server stops delivering messages to the consumer once this limit is reached. By default, the " +
+            "server limit applies, except with the `AFTER_STORE` ack mode where it's unlimited (-1), since nothing is " +
+            "acknowledged before the end of the run. Not used with ordered consumers."
+    )
+    Property<Integer> getMaxAckPending();
 }
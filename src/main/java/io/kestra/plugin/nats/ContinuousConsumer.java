@@ -0,0 +1,399 @@
+package io.kestra.plugin.nats;
+
+import io.kestra.core.runners.RunContext;
+import io.nats.client.Connection;
+import io.nats.client.JetStream;
+import io.nats.client.JetStreamOptions;
+import io.nats.client.JetStreamSubscription;
+import io.nats.client.Message;
+import io.nats.client.PullSubscribeOptions;
+import io.nats.client.api.AckPolicy;
+import io.nats.client.api.ConsumerConfiguration;
+import io.nats.client.api.DeliverPolicy;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Long-lived consumer of a polling {@link Trigger}, fetching messages in the background and spilling them to a local
+ * file, so that an evaluation only swaps the file instead of connecting and subscribing again. Messages are
+ * acknowledged one by one once the file is stored, and negatively acknowledged when the consumer is closed before, so
+ * that a spill lost on failure or eviction is redelivered. Explicit acks also keep several workers evaluating the same
+ * trigger, each with its own consumer on a shared durable, from acknowledging each other's messages.
+ * <p>
+ * Consumers are kept in a worker-level registry keyed by trigger, and closed once they have not been evaluated for
+ * their idle timeout, for example when the trigger is disabled or its flow deleted.
+ */
+final class ContinuousConsumer implements AutoCloseable {
+    private static final Map<String, ContinuousConsumer> CONSUMERS = new ConcurrentHashMap<>();
+
+    private static final Duration EVICTION_PERIOD = Duration.ofSeconds(10);
+
+    static {
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nats-continuous-consumer-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        evictor.scheduleAtFixedRate(ContinuousConsumer::evictIdle, EVICTION_PERIOD.toMillis(), EVICTION_PERIOD.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private final Connection connection;
+
+    private final MessageFetcher fetcher;
+
+    private final Consume.DataFormat dataFormat;
+
+    private final int batchSize;
+
+    private final Duration pollDuration;
+
+    private final Integer maxRecords;
+
+    private final Lock lock = new ReentrantLock();
+
+    private Path spill;
+
+    private OutputStream output;
+
+    private MessageRecordWriter writer;
+
+    private int count;
+
+    private Message lastMessage;
+
+    private PendingAcks acks;
+
+    private Batch retried;
+
+    private volatile String key;
+
+    private volatile long idleTimeoutNanos;
+
+    private volatile long lastEvaluation = System.nanoTime();
+
+    private volatile boolean running = true;
+
+    private boolean closed;
+
+    private volatile Exception failure;
+
+    private volatile Thread thread;
+
+    private ContinuousConsumer(
+        Connection connection,
+        MessageFetcher fetcher,
+        Consume.DataFormat dataFormat,
+        int batchSize,
+        Duration pollDuration,
+        Integer maxRecords
+    ) throws IOException {
+        this.connection = connection;
+        this.fetcher = fetcher;
+        this.dataFormat = dataFormat;
+        this.batchSize = batchSize;
+        this.pollDuration = pollDuration;
+        this.maxRecords = maxRecords;
+        this.openSpill();
+    }
+
+    /**
+     * Get the consumer registered for the given key, creating and starting it with the factory if none is running.
+     */
+    static ContinuousConsumer acquire(String key, Duration idleTimeout, Factory factory) throws Exception {
+        ContinuousConsumer consumer = CONSUMERS.get(key);
+        if (consumer == null) {
+            consumer = factory.create();
+            // registered before being published, so the evictor never sees a consumer it can't remove
+            consumer.key = key;
+            consumer.idleTimeoutNanos = idleTimeout.toNanos();
+            ContinuousConsumer existing = CONSUMERS.putIfAbsent(key, consumer);
+            if (existing != null) {
+                consumer.close();
+                consumer = existing;
+            } else {
+                consumer.start();
+            }
+        }
+
+        consumer.lastEvaluation = System.nanoTime();
+        return consumer;
+    }
+
+    /**
+     * Subscribe to the subject of the given task, with the same consumer configuration as an
+     * {@link Consume.AckMode#AFTER_STORE} {@link Consume} run, but with explicit acks. Spilled messages are only
+     * acknowledged on the next evaluation, once stored, so the ack wait is extended to {@code ackWait} unless the task
+     * sets one.
+     */
+    static ContinuousConsumer create(Consume task, RunContext runContext, Duration ackWait) throws Exception {
+        String durableId = runContext.render(task.getDurableId()).as(String.class).orElse(null);
+        String subject = runContext.render(task.getSubject());
+        DeliverPolicy deliverPolicy = runContext.render(task.getDeliverPolicy()).as(DeliverPolicy.class).orElseThrow();
+        ZonedDateTime startTime = runContext.render(task.getSince()).as(String.class).map(ZonedDateTime::parse).orElse(null);
+
+        Connection connection = task.connect(runContext);
+        try {
+            JetStream jetStream = connection.jetStream(JetStreamOptions.DEFAULT_JS_OPTIONS);
+
+            JetStreamSubscription subscription = jetStream.subscribe(
+                subject,
+                PullSubscribeOptions.builder()
+                    .configuration(ConsumerConfiguration.builder()
+                        .ackPolicy(AckPolicy.Explicit)
+                        .deliverPolicy(deliverPolicy)
+                        .startTime(startTime)
+                        // nothing is acked until the next evaluation, the server must neither stop delivering nor redeliver
+                        .maxAckPending(runContext.render(task.getMaxAckPending()).as(Integer.class).orElse(-1))
+                        .ackWait(runContext.render(task.getAckWait()).as(Duration.class).orElse(ackWait))
+                        .build())
+                    .durable(durableId)
+                    .build()
+            );
+
+            MessageFetcher fetcher;
+            Long maxBatchBytes = runContext.render(task.getMaxBatchBytes()).as(Long.class).orElse(null);
+            if (runContext.render(task.getPrefetch()).as(Boolean.class).orElse(false)) {
+                fetcher = MessageFetcher.prefetch(subscription, task.getBatchSize());
+            } else if (maxBatchBytes != null) {
+                fetcher = MessageFetcher.pull(subscription, maxBatchBytes);
+            } else {
+                fetcher = MessageFetcher.pull(subscription);
+            }
+
+            return new ContinuousConsumer(
+                connection,
+                fetcher,
+                runContext.render(task.getDataFormat()).as(Consume.DataFormat.class).orElse(Consume.DataFormat.BASE64),
+                task.getBatchSize(),
+                runContext.render(task.getPollDuration()).as(Duration.class).orElseThrow(),
+                runContext.render(task.getMaxRecords()).as(Integer.class).orElse(null)
+            );
+        } catch (Exception e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private void start() {
+        lock.lock();
+        try {
+            if (!closed) {
+                this.thread = Thread.ofVirtual().name("nats-continuous-consumer").start(this::fetch);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fetch() {
+        try {
+            while (running) {
+                int size = batchSize;
+                if (maxRecords != null) {
+                    lock.lock();
+                    try {
+                        size = Math.min(batchSize, maxRecords - count);
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+
+                // the spill is full, wait for the next evaluation to swap it
+                if (size <= 0) {
+                    Thread.sleep(pollDuration.toMillis());
+                    continue;
+                }
+
+                List<Message> messages = fetcher.fetch(size, pollDuration);
+                if (!messages.isEmpty()) {
+                    spill(messages);
+                }
+
+                // The MessageFetcher#fetch method catches any thrown InterruptedException.
+                if (Thread.currentThread().isInterrupted()) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closing
+        } catch (Exception e) {
+            failure = e;
+        }
+    }
+
+    private void spill(List<Message> messages) throws IOException {
+        lock.lock();
+        try {
+            for (Message message : messages) {
+                writer.write(message);
+                acks.add(message);
+                count++;
+                lastMessage = message;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hand over the batch given back by {@link #retry(Batch)} if any, else the messages spilled since the previous swap,
+     * starting a new spill file. The returned file must be deleted by the caller, unless given back.
+     */
+    Batch swap() throws Exception {
+        lastEvaluation = System.nanoTime();
+
+        if (failure != null) {
+            this.close();
+            throw failure;
+        }
+
+        lock.lock();
+        try {
+            if (retried != null) {
+                Batch batch = retried;
+                retried = null;
+                return batch;
+            }
+
+            output.close();
+            Batch batch = new Batch(spill, count, lastMessage, acks);
+            this.openSpill();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acknowledge the messages of a batch once stored.
+     */
+    void acknowledge(Batch batch) throws Exception {
+        batch.acks().ack(connection, pollDuration);
+    }
+
+    /**
+     * Give back a batch that could not be stored, to hand it over again on the next evaluation.
+     *
+     * @return {@code false} if the consumer is closed, the messages of the batch are then negatively acknowledged and
+     * the file must be deleted by the caller
+     */
+    boolean retry(Batch batch) {
+        lock.lock();
+        try {
+            if (closed) {
+                batch.acks().nak(connection);
+                return false;
+            }
+
+            retried = batch;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void openSpill() throws IOException {
+        spill = Files.createTempFile("nats-continuous-consumer-", ".ion");
+        output = new BufferedOutputStream(Files.newOutputStream(spill));
+        writer = new MessageRecordWriter(output, dataFormat);
+        acks = new PendingAcks();
+        count = 0;
+        lastMessage = null;
+    }
+
+    /**
+     * Stop fetching and release the subscription. Messages spilled or given back and not handed over are negatively
+     * acknowledged, to be redelivered right away.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+
+        running = false;
+        if (key != null) {
+            CONSUMERS.remove(key, this);
+        }
+
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+        }
+
+        lock.lock();
+        try {
+            acks.nak(connection);
+            if (retried != null) {
+                retried.acks().nak(connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            fetcher.close();
+        } finally {
+            connection.close();
+
+            lock.lock();
+            try {
+                output.close();
+                Files.deleteIfExists(spill);
+                if (retried != null) {
+                    Files.deleteIfExists(retried.file());
+                    retried = null;
+                }
+            } catch (IOException e) {
+                // best effort, the file is in the temporary directory
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static void evictIdle() {
+        long now = System.nanoTime();
+        for (ContinuousConsumer consumer : CONSUMERS.values()) {
+            if (now - consumer.lastEvaluation > consumer.idleTimeoutNanos) {
+                try {
+                    consumer.close();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    record Batch(Path file, int count, Message lastMessage, PendingAcks acks) {
+        long pendingCount() {
+            return lastMessage == null ? 0 : lastMessage.metaData().pendingCount();
+        }
+    }
+
+    @FunctionalInterface
+    interface Factory {
+        ContinuousConsumer create() throws Exception;
+    }
+}
@@ -0,0 +1,103 @@
+package io.kestra.plugin.nats;
+
+import io.nats.client.JetStream;
+import io.nats.client.Message;
+import io.nats.client.api.PublishAck;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Publish messages to JetStream asynchronously, keeping at most {@code maxInFlight} messages waiting for their
+ * {@link PublishAck}, and collect the acknowledged stream sequences.
+ */
+public class JetStreamAsyncPublisher {
+    private final JetStream jetStream;
+
+    private final int maxInFlight;
+
+    private final Semaphore window;
+
+    private final AtomicLong acked = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong firstSequence = new AtomicLong(Long.MAX_VALUE);
+
+    private final AtomicLong lastSequence = new AtomicLong(Long.MIN_VALUE);
+
+    private final AtomicReference<Throwable> firstError = new AtomicReference<>();
+
+    public JetStreamAsyncPublisher(JetStream jetStream, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("At least one message must be allowed in flight, got maxInFlight " + maxInFlight);
+        }
+
+        this.jetStream = jetStream;
+        this.maxInFlight = maxInFlight;
+        this.window = new Semaphore(maxInFlight);
+    }
+
+    public void publish(Message message) throws InterruptedException {
+        this.publish(message, ack -> {});
+    }
+
+    /**
+     * Publish a message, blocking while the in-flight window is full.
+     * The callback is invoked from the client threads once the message is acknowledged.
+     */
+    public void publish(Message message, Consumer<PublishAck> onAck) throws InterruptedException {
+        window.acquire();
+
+        try {
+            jetStream.publishAsync(message).whenComplete((ack, throwable) -> {
+                try {
+                    if (throwable != null) {
+                        failed.incrementAndGet();
+                        firstError.compareAndSet(null, throwable);
+                    } else {
+                        acked.incrementAndGet();
+                        firstSequence.accumulateAndGet(ack.getSeqno(), Math::min);
+                        lastSequence.accumulateAndGet(ack.getSeqno(), Math::max);
+                        onAck.accept(ack);
+                    }
+                } finally {
+                    window.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            window.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Wait for every in-flight message to be acknowledged or failed.
+     */
+    public void await() throws InterruptedException {
+        window.acquire(maxInFlight);
+        window.release(maxInFlight);
+    }
+
+    public long getAcked() {
+        return acked.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public Long getFirstSequence() {
+        return acked.get() == 0 ? null : firstSequence.get();
+    }
+
+    public Long getLastSequence() {
+        return acked.get() == 0 ? null : lastSequence.get();
+    }
+
+    public Throwable getFirstError() {
+        return firstError.get();
+    }
+}
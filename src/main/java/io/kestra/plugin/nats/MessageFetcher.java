@@ -0,0 +1,228 @@
+package io.kestra.plugin.nats;
+
+import io.nats.client.JetStreamReader;
+import io.nats.client.JetStreamSubscription;
+import io.nats.client.Message;
+import io.nats.client.PullRequestOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fetch batches of messages from a JetStream subscription.
+ */
+interface MessageFetcher extends AutoCloseable {
+    /**
+     * Wait used to complete a batch with the messages already buffered by the client.
+     */
+    Duration BUFFERED_WAIT = Duration.ofMillis(1);
+
+    /**
+     * Wait at most {@code maxWait} for the first message, and return up to {@code batchSize} messages.
+     * An empty list means that no message was available.
+     * <p>
+     * Like {@link JetStreamSubscription#fetch(int, Duration)}, an interruption stops the wait and returns the messages
+     * received so far, leaving the thread interrupted status set.
+     */
+    List<Message> fetch(int batchSize, Duration maxWait);
+
+    /**
+     * Release the subscription, the connection may be shared. Closing an already closed fetcher has no effect.
+     */
+    @Override
+    void close() throws InterruptedException;
+
+    /**
+     * Issue one pull request per fetch and wait for it to complete.
+     */
+    static MessageFetcher pull(JetStreamSubscription subscription) {
+        return new MessageFetcher() {
+            @Override
+            public List<Message> fetch(int batchSize, Duration maxWait) {
+                return subscription.fetch(batchSize, maxWait);
+            }
+
+            @Override
+            public void close() {
+                if (subscription.isActive()) {
+                    subscription.unsubscribe();
+                }
+            }
+        };
+    }
+
+    /**
+     * Issue pull requests bounded by {@code maxBytes} of messages as well as by the batch size, a new request being
+     * issued once the previous one is complete or expired.
+     */
+    static MessageFetcher pull(JetStreamSubscription subscription, long maxBytes) {
+        return new MaxBytesPull(subscription, maxBytes);
+    }
+
+    /**
+     * Keep a pull request in flight while the previous batch is processed: a new pull of {@code prefetchSize} messages
+     * is issued as soon as half of the previous one has been consumed.
+     */
+    static MessageFetcher prefetch(JetStreamSubscription subscription, int prefetchSize) {
+        return new Prefetch(subscription, prefetchSize);
+    }
+
+    /**
+     * Read the messages pushed to a push consumer subscription, such as an ordered consumer.
+     * Messages are already buffered by the client, so a fetch returns as soon as one is received.
+     */
+    static MessageFetcher push(JetStreamSubscription subscription) {
+        return new MessageFetcher() {
+            @Override
+            public List<Message> fetch(int batchSize, Duration maxWait) {
+                return MessageFetcher.nextMessages(subscription::nextMessage, batchSize, maxWait);
+            }
+
+            @Override
+            public void close() {
+                if (subscription.isActive()) {
+                    subscription.unsubscribe();
+                }
+            }
+        };
+    }
+
+    /**
+     * Wait at most {@code maxWait} for a first message, then complete the batch with the messages already buffered.
+     */
+    private static List<Message> nextMessages(NextMessage next, int batchSize, Duration maxWait) {
+        List<Message> messages = new ArrayList<>(batchSize);
+
+        try {
+            Message message = next.nextMessage(maxWait);
+            while (message != null) {
+                messages.add(message);
+                if (messages.size() >= batchSize) {
+                    break;
+                }
+                message = next.nextMessage(BUFFERED_WAIT);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return messages;
+    }
+
+    @FunctionalInterface
+    interface NextMessage {
+        Message nextMessage(Duration timeout) throws InterruptedException;
+    }
+
+    final class MaxBytesPull implements MessageFetcher {
+        private final JetStreamSubscription subscription;
+
+        private final long maxBytes;
+
+        private long expiresAt = System.nanoTime();
+
+        private int pendingMessages;
+
+        private long pendingBytes;
+
+        private MaxBytesPull(JetStreamSubscription subscription, long maxBytes) {
+            this.subscription = subscription;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public List<Message> fetch(int batchSize, Duration maxWait) {
+            if (System.nanoTime() - expiresAt >= 0 || pendingMessages <= 0 || pendingBytes <= 0) {
+                subscription.pull(PullRequestOptions.builder(batchSize).maxBytes(maxBytes).expiresIn(maxWait).build());
+                expiresAt = System.nanoTime() + maxWait.toNanos();
+                pendingMessages = batchSize;
+                pendingBytes = maxBytes;
+            }
+
+            int requested = Math.min(batchSize, pendingMessages);
+            long wait = Math.max(expiresAt - System.nanoTime(), BUFFERED_WAIT.toNanos());
+            List<Message> messages = MessageFetcher.nextMessages(subscription::nextMessage, requested, Duration.ofNanos(wait));
+
+            long largest = 0;
+            for (Message message : messages) {
+                long size = size(message);
+                largest = Math.max(largest, size);
+                pendingMessages--;
+                pendingBytes -= size;
+            }
+
+            // The server ends a request without notice when the next message does not fit in the bytes left, and
+            // sends the messages of a request back to back: consider the request complete when less than the largest
+            // message is left, or when the messages stopped coming before the batch was filled.
+            if (pendingBytes < largest || messages.size() < requested) {
+                pendingBytes = 0;
+            }
+
+            return messages;
+        }
+
+        /**
+         * The size accounted by the server for a message.
+         */
+        private static long size(Message message) {
+            long size = message.getSubject().length() + (message.getData() == null ? 0 : message.getData().length);
+            if (message.getReplyTo() != null) {
+                size += message.getReplyTo().length();
+            }
+            if (message.getHeaders() != null) {
+                size += message.getHeaders().serializedLength();
+            }
+            return size;
+        }
+
+        @Override
+        public void close() {
+            if (subscription.isActive()) {
+                subscription.unsubscribe();
+            }
+        }
+    }
+
+    final class Prefetch implements MessageFetcher {
+        private static final Duration DRAIN_WAIT = Duration.ofMillis(100);
+
+        private final JetStreamSubscription subscription;
+
+        private final JetStreamReader reader;
+
+        private Prefetch(JetStreamSubscription subscription, int prefetchSize) {
+            this.subscription = subscription;
+            this.reader = subscription.reader(prefetchSize, Math.max(1, prefetchSize / 2));
+        }
+
+        @Override
+        public List<Message> fetch(int batchSize, Duration maxWait) {
+            return MessageFetcher.nextMessages(reader::nextMessage, batchSize, maxWait);
+        }
+
+        /**
+         * Stop pulling and hand the prefetched messages that were not returned back to the server, so they are
+         * redelivered right away instead of after the ack wait.
+         */
+        @Override
+        public void close() throws InterruptedException {
+            if (!subscription.isActive()) {
+                return;
+            }
+
+            reader.stop();
+
+            try {
+                Message message;
+                while ((message = subscription.nextMessage(DRAIN_WAIT)) != null) {
+                    if (message.isJetStream()) {
+                        message.nak();
+                    }
+                }
+            } finally {
+                subscription.unsubscribe();
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package io.kestra.plugin.nats;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.serializers.JacksonMapper;
+import io.nats.client.Message;
+import io.nats.client.impl.Headers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Write consumed messages as Ion records, with the message data encoded according to a {@link Consume.DataFormat}.
+ * <p>
+ * The record map is reused from one message to the other and headers are exposed as a view, so that writing a message
+ * only allocates the encoded data.
+ */
+final class MessageRecordWriter {
+    private static final ObjectMapper JSON_MAPPER = JacksonMapper.ofJson();
+
+    private final OutputStream output;
+
+    private final Consume.DataFormat dataFormat;
+
+    private final Map<String, Object> record = new LinkedHashMap<>();
+
+    MessageRecordWriter(OutputStream output, Consume.DataFormat dataFormat) {
+        this.output = output;
+        this.dataFormat = dataFormat;
+    }
+
+    void write(Message message) throws IOException {
+        record.put("subject", message.getSubject());
+        record.put("headers", headers(message.getHeaders()));
+        record.put("data", data(message.getData()));
+        record.put("timestamp", message.metaData().timestamp().toInstant());
+
+        FileSerde.write(output, record);
+    }
+
+    private Object data(byte[] data) {
+        return switch (dataFormat) {
+            case BASE64 -> Base64.getEncoder().encodeToString(data);
+            case STRING -> new String(data, StandardCharsets.UTF_8);
+            case JSON -> data == null || data.length == 0 ? null : json(data);
+            case BYTES -> data;
+        };
+    }
+
+    /**
+     * Parse the data as JSON, falling back to the UTF-8 string so that a single invalid payload doesn't fail the drain.
+     */
+    private static Object json(byte[] data) {
+        try {
+            return JSON_MAPPER.readValue(data, Object.class);
+        } catch (IOException e) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Map<String, List<String>> headers(Headers headers) {
+        if (headers == null || headers.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return new AbstractMap<>() {
+            @Override
+            public Set<Entry<String, List<String>>> entrySet() {
+                return headers.entrySet();
+            }
+        };
+    }
+}
@@ -4,19 +4,17 @@ import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.Task;
 import io.kestra.core.runners.RunContext;
-import io.nats.client.AuthHandler;
 import io.nats.client.Connection;
 import io.nats.client.Nats;
 import io.nats.client.Options;
+import lombok.Builder;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 
 @SuperBuilder
 @ToString
@@ -34,26 +32,38 @@ public abstract class NatsConnection extends Task implements NatsConnectionInter
 
     protected Property<String> creds;
 
+    @Builder.Default
+    protected Property<Boolean> sharedConnection = Property.of(false);
+
     protected Connection connect(RunContext runContext) throws IOException, InterruptedException, IllegalVariableEvaluationException {
-        Options.Builder connectOptions = Options.builder().server(runContext.render(url));
-        if (username != null && password != null) {
-            connectOptions.userInfo(runContext.render(username).as(String.class).orElseThrow(),
-                runContext.render(password).as(String.class).orElseThrow());
-        }
+        String renderedUrl = runContext.render(url);
+        String renderedUsername = runContext.render(username).as(String.class).orElse(null);
+        String renderedPassword = runContext.render(password).as(String.class).orElse(null);
+        String renderedToken = runContext.render(token).as(String.class).orElse(null);
+        String renderedCreds = runContext.render(creds).as(String.class).orElse(null);
 
-        if (token != null) {
-            connectOptions.token(runContext.render(token).as(String.class).orElseThrow().toCharArray());
-        }
+        NatsConnectionPool.Factory factory = () -> {
+            Options.Builder connectOptions = Options.builder().server(renderedUrl);
+            if (renderedUsername != null && renderedPassword != null) {
+                connectOptions.userInfo(renderedUsername, renderedPassword);
+            }
+
+            if (renderedToken != null) {
+                connectOptions.token(renderedToken.toCharArray());
+            }
+
+            if (renderedCreds != null) {
+                connectOptions.authHandler(NatsCredentials.of(renderedCreds));
+            }
 
-        if (this.creds != null) {
-            File credsFiles = runContext.workingDir()
-                .createTempFile(runContext.render(this.creds).as(String.class).orElseThrow().getBytes(StandardCharsets.UTF_8), "creds")
-                .toFile();
+            return Nats.connect(connectOptions.build());
+        };
 
-            AuthHandler ah = Nats.credentials(credsFiles.getAbsolutePath());
-            connectOptions.authHandler(ah);
+        if (runContext.render(sharedConnection).as(Boolean.class).orElse(false)) {
+            String key = NatsConnectionPool.fingerprint(renderedUrl, renderedUsername, renderedPassword, renderedToken, renderedCreds);
+            return NatsConnectionPool.getInstance().acquire(key, factory);
         }
 
-        return Nats.connect(connectOptions.build());
+        return factory.connect();
     }
 }
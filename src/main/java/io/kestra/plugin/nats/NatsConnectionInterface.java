@@ -36,4 +36,12 @@ public interface NatsConnectionInterface {
         title = "Credentials files authentification"
     )
     Property<String> getCreds();
+
+    @Schema(
+        title = "Reuse a connection shared by the worker",
+        description = "If true, the connection is taken from a worker-level pool keyed by the url and the credentials, " +
+            "and is kept open to be reused by subsequent tasks and triggers targeting the same server. " +
+            "Idle pooled connections are closed after 5 minutes."
+    )
+    Property<Boolean> getSharedConnection();
 }
@@ -0,0 +1,216 @@
+package io.kestra.plugin.nats;
+
+import io.nats.client.Connection;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Worker-level pool of NATS connections, shared by every task or trigger connecting to the same server with the same
+ * credentials.
+ * <p>
+ * Connections are reference-counted: {@link #acquire(String, Factory)} hands out a lease whose {@link Connection#close()}
+ * and {@link Connection#drain(Duration)} only release the reference, and which can't force a reconnection. A connection is closed once it has been unused for {@link #IDLE_TIMEOUT}, and a
+ * connection that is no longer connected is replaced on the next acquire.
+ */
+final class NatsConnectionPool {
+    static final Duration IDLE_TIMEOUT = Duration.ofMinutes(5);
+
+    private static final NatsConnectionPool INSTANCE = new NatsConnectionPool(IDLE_TIMEOUT);
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long idleTimeoutNanos;
+
+    NatsConnectionPool(Duration idleTimeout) {
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+
+        ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "nats-connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        evictor.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    static NatsConnectionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compute a stable fingerprint of the given connection parameters, used as pool key so that secrets never end up
+     * in memory dumps of the pool.
+     */
+    static String fingerprint(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                if (part != null) {
+                    digest.update(part.getBytes(StandardCharsets.UTF_8));
+                }
+                // separator, so that ("ab", "c") and ("a", "bc") do not collide
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Lease a connection for the given key, creating it with the factory if none is available.
+     * The returned connection must be closed to release the lease.
+     */
+    Connection acquire(String key, Factory factory) throws IOException, InterruptedException {
+        while (true) {
+            Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+            Connection connection = entry.retain(factory);
+
+            // the entry was evicted between the lookup and the retain, try again with a fresh one
+            if (connection != null) {
+                return lease(entry, connection);
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    void evictIdle() {
+        long now = System.nanoTime();
+        entries.forEach((key, entry) -> {
+            if (entry.evictIfIdle(now)) {
+                entries.remove(key, entry);
+            }
+        });
+    }
+
+    private static Connection lease(Entry entry, Connection connection) {
+        AtomicBoolean released = new AtomicBoolean(false);
+
+        return (Connection) Proxy.newProxyInstance(
+            NatsConnectionPool.class.getClassLoader(),
+            new Class<?>[]{Connection.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "close" -> {
+                        if (method.getParameterCount() == 0) {
+                            if (released.compareAndSet(false, true)) {
+                                entry.release();
+                            }
+                            return null;
+                        }
+                    }
+                    case "drain" -> {
+                        // draining would close the shared connection, a lease only drains its own reference
+                        if (released.compareAndSet(false, true)) {
+                            entry.release();
+                        }
+                        return CompletableFuture.completedFuture(true);
+                    }
+                    case "forceReconnect" -> throw new UnsupportedOperationException("A shared connection can't be reconnected by a single lease");
+                    default -> {
+                    }
+                }
+
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        );
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    interface Factory {
+        Connection connect() throws IOException, InterruptedException;
+    }
+
+    private final class Entry {
+        private Connection connection;
+        private int references;
+        private long idleSince = System.nanoTime();
+        private boolean evicted;
+
+        synchronized Connection retain(Factory factory) throws IOException, InterruptedException {
+            if (evicted) {
+                return null;
+            }
+
+            if (connection != null && !isHealthy()) {
+                connection = null;
+            }
+
+            if (connection == null) {
+                connection = factory.connect();
+            }
+
+            references++;
+            return connection;
+        }
+
+        synchronized void release() {
+            references--;
+            if (references == 0) {
+                idleSince = System.nanoTime();
+            }
+        }
+
+        synchronized boolean evictIfIdle(long now) {
+            if (references > 0 || now - idleSince < idleTimeoutNanos) {
+                return false;
+            }
+
+            evicted = true;
+            if (connection != null) {
+                closeQuietly(connection);
+                connection = null;
+            }
+            return true;
+        }
+
+        /**
+         * A closed connection is never reused. A connection that is reconnecting is kept while other leases use it,
+         * jnats will restore it, but is replaced when nobody else holds it.
+         */
+        private boolean isHealthy() {
+            Connection.Status status = connection.getStatus();
+            if (status == Connection.Status.CONNECTED) {
+                return true;
+            }
+
+            if (status != Connection.Status.CLOSED && references > 0) {
+                return true;
+            }
+
+            if (status != Connection.Status.CLOSED) {
+                closeQuietly(connection);
+            }
+            return false;
+        }
+    }
+}
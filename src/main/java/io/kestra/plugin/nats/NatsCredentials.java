@@ -0,0 +1,84 @@
+package io.kestra.plugin.nats;
+
+import io.nats.client.AuthHandler;
+import io.nats.client.Nats;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory {@link AuthHandler} for the content of a NATS credentials file.
+ * <p>
+ * The content is parsed once by the jnats in-memory credentials handler, kept in a bounded cache keyed by the
+ * fingerprint of the content, so connecting repeatedly with the same credentials neither touches the disk nor parses
+ * the keys again.
+ */
+final class NatsCredentials implements AuthHandler {
+    static final int CACHE_SIZE = 128;
+
+    private static final Map<String, NatsCredentials> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NatsCredentials> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final AuthHandler handler;
+
+    private NatsCredentials(AuthHandler handler) {
+        this.handler = handler;
+    }
+
+    static NatsCredentials of(String creds) throws IOException {
+        String key = NatsConnectionPool.fingerprint(creds);
+
+        synchronized (CACHE) {
+            NatsCredentials cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        NatsCredentials parsed = parse(creds);
+
+        synchronized (CACHE) {
+            CACHE.putIfAbsent(key, parsed);
+            return CACHE.get(key);
+        }
+    }
+
+    /**
+     * Parse the content of a credentials file with the jnats parser, which reads the user JWT and the NKey seed once.
+     */
+    static NatsCredentials parse(String creds) throws IOException {
+        try {
+            AuthHandler handler = Nats.staticCredentials(creds.getBytes(StandardCharsets.UTF_8));
+
+            // the parser doesn't fail on content without any seed, deriving the public key does
+            if (handler.getID() == null) {
+                throw new IOException("Invalid credentials, expecting a user JWT and a NKey seed");
+            }
+
+            return new NatsCredentials(handler);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid credentials, expecting a user JWT and a NKey seed", e);
+        }
+    }
+
+    @Override
+    public byte[] sign(byte[] nonce) {
+        return handler.sign(nonce);
+    }
+
+    @Override
+    public char[] getID() {
+        return handler.getID();
+    }
+
+    @Override
+    public char[] getJWT() {
+        return handler.getJWT();
+    }
+}
@@ -0,0 +1,52 @@
+package io.kestra.plugin.nats;
+
+import io.nats.client.Connection;
+import io.nats.client.Message;
+import io.nats.client.impl.AckType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Reply subjects of JetStream messages acknowledged once stored, so that they can all be acknowledged after a
+ * successful store, or negatively acknowledged to be redelivered right away when the store fails.
+ * <p>
+ * Only the reply subjects are kept, not the messages and their data.
+ */
+final class PendingAcks {
+    private final List<String> replyTos = new ArrayList<>();
+
+    synchronized void add(Message message) {
+        if (message.getReplyTo() != null) {
+            replyTos.add(message.getReplyTo());
+        }
+    }
+
+    /**
+     * Acknowledge all the messages, waiting for the server to have processed the acks.
+     */
+    synchronized void ack(Connection connection, Duration timeout) throws TimeoutException, InterruptedException {
+        this.send(connection, AckType.AckAck);
+        connection.flush(timeout);
+    }
+
+    /**
+     * Negatively acknowledge all the messages, best effort: a message not naked is redelivered after the ack wait.
+     */
+    synchronized void nak(Connection connection) {
+        try {
+            this.send(connection, AckType.AckNak);
+        } catch (RuntimeException e) {
+            // the connection is closed or closing
+        }
+    }
+
+    private void send(Connection connection, AckType ackType) {
+        for (String replyTo : replyTos) {
+            connection.publish(replyTo, ackType.bytes);
+        }
+        replyTos.clear();
+    }
+}
@@ -1,12 +1,13 @@
 package io.kestra.plugin.nats;
 
-import io.kestra.core.exceptions.IllegalVariableEvaluationException;
 import io.kestra.core.models.annotations.Example;
 import io.kestra.core.models.annotations.Plugin;
 import io.kestra.core.models.annotations.PluginProperty;
+import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
 import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.Rethrow;
 import io.nats.client.Connection;
 import io.nats.client.Message;
 import io.nats.client.impl.Headers;
@@ -15,6 +16,7 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import reactor.core.publisher.Flux;
@@ -97,6 +99,26 @@ import static io.kestra.core.utils.Rethrow.throwFunction;
                     from: "{{ outputs.some_task_with_output_file.uri }}"
                 """
         ),
+        @Example(
+            title = "Produce messages from an internal storage file to a JetStream stream, waiting for the publish acknowledgements.",
+            full = true,
+            code = """
+                id: nats_produce_messages_to_jetstream
+                namespace: company.team
+
+                tasks:
+                  - id: produce
+                    type: io.kestra.plugin.nats.Produce
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_password
+                    subject: kestra.publish
+                    from: "{{ outputs.some_task_with_output_file.uri }}"
+                    renderFileMessages: false
+                    jetStream: true
+                    maxInFlight: 5000
+                """
+        ),
     }
 )
 public class Produce extends NatsConnection implements RunnableTask<Produce.Output> {
@@ -118,43 +140,112 @@ public class Produce extends NatsConnection implements RunnableTask<Produce.Outp
     @PluginProperty(dynamic = true)
     private Object from;
 
+    @Schema(
+        title = "Render the messages read from an internal storage file",
+        description = "By default, the headers and data of each message read from an internal storage `from` are rendered as templates. " +
+            "Set it to false to send them as-is, which avoids running the template engine for every message of large files."
+    )
+    @Builder.Default
+    private Property<Boolean> renderFileMessages = Property.of(true);
+
+    @Schema(
+        title = "Publish to JetStream and wait for the publish acknowledgements",
+        description = "If true, messages are published asynchronously to the JetStream stream bound to the subject, " +
+            "with at most `maxInFlight` messages waiting for their acknowledgement. " +
+            "Acknowledged and failed messages, and the acknowledged stream sequences, are reported in the outputs."
+    )
+    @Builder.Default
+    private Property<Boolean> jetStream = Property.of(false);
+
+    @Schema(
+        title = "The max number of messages waiting for a JetStream publish acknowledgement",
+        description = "Only used when `jetStream` is true."
+    )
+    @Min(1)
+    @Builder.Default
+    private Property<Integer> maxInFlight = Property.of(1000);
+
+    @Schema(
+        title = "Succeed even if some messages were not acknowledged by JetStream",
+        description = "By default, the task fails when a message was not acknowledged. If true, the failure is only " +
+            "logged and reported in the `failedCount` output. Only used when `jetStream` is true."
+    )
+    @Builder.Default
+    private Property<Boolean> ignoreAckFailures = Property.of(false);
+
     public Output run(RunContext runContext) throws Exception {
-        Connection connection = connect(runContext);
+        try (Connection connection = connect(runContext)) {
+            JetStreamAsyncPublisher jetStreamPublisher = null;
+            if (runContext.render(this.jetStream).as(Boolean.class).orElse(false)) {
+                jetStreamPublisher = new JetStreamAsyncPublisher(
+                    connection.jetStream(),
+                    runContext.render(this.maxInFlight).as(Integer.class).orElseThrow()
+                );
+            }
+            Rethrow.ConsumerChecked<Message, Exception> sender = jetStreamPublisher != null ? jetStreamPublisher::publish : connection::publish;
 
-        int messagesCount;
+            int messagesCount;
 
-        if (this.from instanceof String || this.from instanceof List) {
-            if (this.from instanceof String fromStr) {
-                URI from = new URI(runContext.render(fromStr));
-                if (!from.getScheme().equals("kestra")) {
-                    throw new Exception("Invalid from parameter, must be a Kestra internal storage URI");
-                }
+            if (this.from instanceof String || this.from instanceof List) {
+                if (this.from instanceof String fromStr) {
+                    URI from = new URI(runContext.render(fromStr));
+                    if (!from.getScheme().equals("kestra")) {
+                        throw new Exception("Invalid from parameter, must be a Kestra internal storage URI");
+                    }
 
-                try (BufferedReader inputStream = new BufferedReader(new InputStreamReader(runContext.storage().getFile(from)))) {
-                    messagesCount = publish(runContext, connection, FileSerde.readAll(inputStream));
+                    try (BufferedReader inputStream = new BufferedReader(new InputStreamReader(runContext.storage().getFile(from)))) {
+                        boolean renderMessages = runContext.render(this.renderFileMessages).as(Boolean.class).orElse(true);
+                        messagesCount = publish(runContext, sender, FileSerde.readAll(inputStream), renderMessages);
+                    }
+                } else {
+                    messagesCount = publish(runContext, sender, Flux.fromIterable(((List<?>) this.from)), true);
                 }
+
             } else {
-                messagesCount = publish(runContext, connection, Flux.fromIterable(((List<?>) this.from)));
+                sender.accept(this.producerMessage(runContext.render(this.subject), runContext.render((Map<String, Object>) this.from)));
+                messagesCount = 1;
             }
 
-        } else {
-            connection.publish(this.producerMessage(runContext.render(this.subject), runContext.render((Map<String, Object>) this.from)));
-            messagesCount = 1;
-        }
+            Output.OutputBuilder output = Output.builder()
+                .messagesCount(messagesCount);
 
-        connection.flushBuffer();
-        connection.close();
+            if (jetStreamPublisher != null) {
+                jetStreamPublisher.await();
 
-        return Output.builder()
-            .messagesCount(messagesCount)
-            .build();
+                if (jetStreamPublisher.getFailed() > 0) {
+                    if (!runContext.render(this.ignoreAckFailures).as(Boolean.class).orElse(false)) {
+                        throw new Exception(jetStreamPublisher.getFailed() + " message(s) were not acknowledged by JetStream", jetStreamPublisher.getFirstError());
+                    }
+
+                    runContext.logger().error(
+                        "{} message(s) were not acknowledged by JetStream",
+                        jetStreamPublisher.getFailed(),
+                        jetStreamPublisher.getFirstError()
+                    );
+                }
+
+                output
+                    .ackedCount(jetStreamPublisher.getAcked())
+                    .failedCount(jetStreamPublisher.getFailed())
+                    .firstSequence(jetStreamPublisher.getFirstSequence())
+                    .lastSequence(jetStreamPublisher.getLastSequence());
+            } else {
+                connection.flushBuffer();
+            }
+
+            return output.build();
+        }
     }
 
-    private Integer publish(RunContext runContext, Connection connection, Flux<Object> messagesFlowable) throws IllegalVariableEvaluationException {
+    private Integer publish(RunContext runContext, Rethrow.ConsumerChecked<Message, Exception> sender, Flux<Object> messagesFlowable, boolean renderMessages) throws Exception {
+        // the subject doesn't depend on the message, render it once
+        String subject = runContext.render(this.subject);
+
         return messagesFlowable.map(throwFunction(object -> {
-                connection.publish(this.producerMessage(runContext.render(this.subject), runContext.render((Map<String, Object>) object)));
+                Map<String, Object> message = (Map<String, Object>) object;
+                sender.accept(this.producerMessage(subject, renderMessages ? runContext.render(message) : message));
                 return 1;
-            })).reduce(Integer::sum)
+            })).reduce(0, Integer::sum)
             .block();
     }
 
@@ -182,5 +273,29 @@ public class Produce extends NatsConnection implements RunnableTask<Produce.Outp
             title = "Number of messages produced"
         )
         private final Integer messagesCount;
+
+        @io.swagger.v3.oas.annotations.media.Schema(
+            title = "Number of messages acknowledged by JetStream",
+            description = "Only set when `jetStream` is true."
+        )
+        private final Long ackedCount;
+
+        @io.swagger.v3.oas.annotations.media.Schema(
+            title = "Number of messages that JetStream failed to acknowledge",
+            description = "Only set when `jetStream` is true."
+        )
+        private final Long failedCount;
+
+        @io.swagger.v3.oas.annotations.media.Schema(
+            title = "Lowest stream sequence acknowledged",
+            description = "Only set when `jetStream` is true."
+        )
+        private final Long firstSequence;
+
+        @io.swagger.v3.oas.annotations.media.Schema(
+            title = "Highest stream sequence acknowledged",
+            description = "Only set when `jetStream` is true."
+        )
+        private final Long lastSequence;
     }
 }
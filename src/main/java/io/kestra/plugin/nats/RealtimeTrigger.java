@@ -12,14 +12,17 @@ import io.kestra.core.models.triggers.TriggerOutput;
 import io.kestra.core.models.triggers.TriggerService;
 import io.kestra.core.runners.RunContext;
 import io.nats.client.Connection;
+import io.nats.client.JetStream;
 import io.nats.client.JetStreamOptions;
 import io.nats.client.JetStreamSubscription;
 import io.nats.client.Message;
 import io.nats.client.PullSubscribeOptions;
+import io.nats.client.PushSubscribeOptions;
 import io.nats.client.api.AckPolicy;
 import io.nats.client.api.ConsumerConfiguration;
 import io.nats.client.api.DeliverPolicy;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
 import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.EqualsAndHashCode;
@@ -28,17 +31,32 @@ import lombok.NoArgsConstructor;
 import lombok.ToString;
 import lombok.experimental.SuperBuilder;
 import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Operators;
+import reactor.util.context.Context;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static io.kestra.core.utils.Rethrow.throwFunction;
 
@@ -49,7 +67,11 @@ import static io.kestra.core.utils.Rethrow.throwFunction;
 @NoArgsConstructor
 @Schema(
     title = "Consume a message in real-time from a NATS subject on a JetStream-enabled NATS server and create one execution per message.",
-    description = "If you would like to consume multiple messages processed within a given time frame and process them in batch, you can use the [io.kestra.plugin.nats.Trigger](https://kestra.io/plugins/plugin-nats/triggers/io.kestra.plugin.nats.trigger) instead."
+    description = "If you would like to consume multiple messages processed within a given time frame and process them in batch, you can use the [io.kestra.plugin.nats.Trigger](https://kestra.io/plugins/plugin-nats/triggers/io.kestra.plugin.nats.trigger) instead.\n\n" +
+        "The trigger variables depend on `windowMaxMessages`:\n" +
+        "- By default, each execution gets a single message: `subject`, `headers`, `data` and `timestamp`.\n" +
+        "- When `windowMaxMessages` is set, each execution gets a window of messages: `count` and `messages`, " +
+        "a list of messages with the same `subject`, `headers`, `data` and `timestamp` fields."
 )
 @Plugin(
     examples = {
@@ -77,6 +99,60 @@ import static io.kestra.core.utils.Rethrow.throwFunction;
                     deliverPolicy: All
                 """
             }
+        ),
+        @Example(
+            title = "Subscribe to several NATS subjects with a single consumer, sharing the connection with the other triggers of the worker targeting the same server.",
+            full = true,
+            code = {
+                """
+                id: nats_orders
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.subject }}: {{ trigger.data }}"
+
+                triggers:
+                  - id: watch
+                    type: io.kestra.plugin.nats.RealtimeTrigger
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_password
+                    subject: orders.created
+                    subjects:
+                      - orders.updated
+                      - orders.cancelled
+                    durableId: natsOrders
+                    sharedConnection: true
+                """
+            }
+        ),
+        @Example(
+            title = "Create one execution per window of up to 100 messages, closed after 5 seconds.",
+            full = true,
+            code = {
+                """
+                id: nats_windows
+                namespace: company.team
+
+                tasks:
+                  - id: log
+                    type: io.kestra.plugin.core.log.Log
+                    message: "{{ trigger.count }} messages, the first one being {{ trigger.messages[0].data }}"
+
+                triggers:
+                  - id: watch
+                    type: io.kestra.plugin.nats.RealtimeTrigger
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_password
+                    subject: kestra.trigger
+                    durableId: natsWindows
+                    windowMaxMessages: 100
+                    windowLinger: PT5S
+                """
+            }
         )
     }
 )
@@ -86,7 +162,16 @@ public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerI
     private Property<String> password;
     private Property<String> token;
     private Property<String> creds;
+    @Builder.Default
+    private Property<Boolean> sharedConnection = Property.of(false);
     private String subject;
+
+    @Schema(
+        title = "Other subjects to subscribe to, along with `subject`",
+        description = "A single consumer filters all the subjects, they must belong to the same stream. " +
+            "Requires NATS server 2.10 or later."
+    )
+    private Property<List<String>> subjects;
     private Property<String> durableId;
     private Property<String> since;
 
@@ -96,6 +181,110 @@ public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerI
     @Builder.Default
     private Property<DeliverPolicy> deliverPolicy = Property.of(DeliverPolicy.All);
 
+    @Builder.Default
+    private Property<Boolean> ordered = Property.of(false);
+
+    @Schema(
+        title = "The max number of messages fetched at once",
+        description = "When fetched batches come back full, the batch size is doubled up to this size, " +
+            "and halved back toward `batchSize` when fetches come back empty. By default, the batch size is fixed."
+    )
+    private Property<Integer> maxBatchSize;
+
+    @Schema(
+        title = "The max size of the messages fetched at once, in bytes",
+        description = "Bounds each pull request by size as well as by batch size, so that the memory used by a fetch " +
+            "does not depend on the payload size. It must be greater than the largest message, which would otherwise " +
+            "never be delivered. Not used with push or ordered consumers."
+    )
+    @Min(1)
+    private Property<Long> maxBatchBytes;
+
+    @Schema(
+        title = "The min duration to wait for messages on each fetch"
+    )
+    @Builder.Default
+    private Property<Duration> minFetchWait = Property.of(Duration.ofMillis(100));
+
+    @Schema(
+        title = "The max duration to wait for messages on each fetch",
+        description = "When fetches come back empty, the wait is doubled up to this duration, reducing the pull requests " +
+            "sent while the subject is idle; it goes back to `minFetchWait` as soon as a message is received. " +
+            "Note that the first message after an idle period may be delayed up to this duration. By default, the wait is fixed."
+    )
+    private Property<Duration> maxFetchWait;
+
+    @Schema(
+        title = "The max number of fetched messages waiting to be turned into executions",
+        description = "Messages are only fetched from the server when executions can be created for them, " +
+            "so a slow execution queue stops the fetching instead of buffering messages in memory."
+    )
+    @Builder.Default
+    private Property<Integer> bufferSize = Property.of(100);
+
+    @Schema(
+        title = "Whether to use a push consumer instead of fetching messages",
+        description = "The server pushes messages to the client as soon as they are published, with flow control " +
+            "and idle heartbeats, instead of the trigger pulling them every fetch wait. This lowers the latency down " +
+            "to the network latency. The number of messages in flight is bounded by `maxAckPending`. " +
+            "Ordered consumers are always push consumers."
+    )
+    @Builder.Default
+    private Property<Boolean> push = Property.of(false);
+
+    @Schema(
+        title = "The interval of the heartbeats sent by the server to a push consumer while it is idle",
+        description = "Heartbeats let the client detect a stalled consumer. Flow control messages are sent along."
+    )
+    @Builder.Default
+    private Property<Duration> idleHeartbeat = Property.of(Duration.ofSeconds(5));
+
+    @Schema(
+        title = "Whether to acknowledge each message only once its execution has been handed over",
+        description = "By default, a message is acknowledged as soon as it is emitted. When enabled, messages are kept " +
+            "in an ack window and acknowledged once the execution created for them has been accepted, so a message " +
+            "whose execution could not be created is redelivered after `ackWait`. Ignored for ordered consumers, " +
+            "which do not acknowledge messages."
+    )
+    @Builder.Default
+    private Property<Boolean> deferAck = Property.of(false);
+
+    @Schema(
+        title = "The max number of messages delivered and not acknowledged yet",
+        description = "The server stops delivering messages to the consumer once this limit is reached. " +
+            "By default, the server limit applies."
+    )
+    private Property<Integer> maxAckPending;
+
+    @Schema(
+        title = "The duration the server waits for a message to be acknowledged before redelivering it",
+        description = "By default, the server ack wait applies."
+    )
+    private Property<Duration> ackWait;
+
+    @Schema(
+        title = "Group up to this number of messages into a single execution",
+        description = "When set, messages are coalesced into one execution per window instead of one execution per " +
+            "message, and the trigger variables hold the `messages` list and their `count`. A window is closed when " +
+            "it holds this number of messages or when `windowLinger` has elapsed since its first message."
+    )
+    @Min(1)
+    private Property<Integer> windowMaxMessages;
+
+    @Schema(
+        title = "The max size of the message data grouped into a single execution",
+        description = "Only used when `windowMaxMessages` is set. A window exceeding this size is split over several " +
+            "executions; a single message larger than this size still gets its own execution."
+    )
+    private Property<Long> windowMaxBytes;
+
+    @Schema(
+        title = "The max duration to wait for more messages before closing a window",
+        description = "Only used when `windowMaxMessages` is set."
+    )
+    @Builder.Default
+    private Property<Duration> windowLinger = Property.of(Duration.ofSeconds(1));
+
     @Builder.Default
     @Getter(AccessLevel.NONE)
     private final AtomicBoolean isActive = new AtomicBoolean(true);
@@ -112,84 +301,281 @@ public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerI
             .url(url)
             .username(username)
             .password(password)
+            .token(token)
+            .creds(creds)
+            .sharedConnection(sharedConnection)
             .subject(subject)
             .durableId(durableId)
             .since(since)
             .batchSize(batchSize)
             .deliverPolicy(deliverPolicy)
+            .ordered(ordered)
             .build();
 
+        RunContext runContext = conditionContext.getRunContext();
+        if (this.windowMaxMessages != null) {
+            return Flux
+                .from(windowPublisher(task, runContext))
+                .map(window -> TriggerService.generateRealtimeExecution(this, conditionContext, context, window));
+        }
+
         return Flux
-            .from(publisher(task, conditionContext.getRunContext()))
+            .from(publisher(task, runContext))
             .map(record -> TriggerService.generateRealtimeExecution(this, conditionContext, context, record));
     }
 
     public Publisher<Consume.NatsMessageOutput> publisher(final Consume task, final RunContext runContext) throws Exception {
+        return this.publisher(task, runContext, Function.identity(), output -> 1);
+    }
+
+    /**
+     * Group the consumed messages into windows of at most {@code windowMaxMessages} messages and {@code windowMaxBytes}
+     * of data, closed after {@code windowLinger}.
+     */
+    public Publisher<NatsMessagesOutput> windowPublisher(final Consume task, final RunContext runContext) throws Exception {
+        final int maxMessages = runContext.render(this.windowMaxMessages).as(Integer.class).orElseThrow();
+        final long maxBytes = runContext.render(this.windowMaxBytes).as(Long.class).orElse(Long.MAX_VALUE);
+        final Duration linger = runContext.render(this.windowLinger).as(Duration.class).orElseThrow();
+
+        return this.publisher(
+            task,
+            runContext,
+            messages -> messages
+                // fair backpressure keeps the upstream demand-driven, instead of requesting an unbounded number of messages
+                .bufferTimeout(maxMessages, linger, true)
+                .flatMapIterable(window -> splitBySize(window, maxBytes))
+                .map(window -> NatsMessagesOutput.builder()
+                    .count(window.size())
+                    .messages(window)
+                    .build()
+                ),
+            NatsMessagesOutput::getCount
+        );
+    }
+
+    private static List<List<Consume.NatsMessageOutput>> splitBySize(List<Consume.NatsMessageOutput> window, long maxBytes) {
+        if (maxBytes == Long.MAX_VALUE) {
+            return List.of(window);
+        }
+
+        List<List<Consume.NatsMessageOutput>> windows = new ArrayList<>();
+        List<Consume.NatsMessageOutput> current = new ArrayList<>();
+        long size = 0;
+        for (Consume.NatsMessageOutput output : window) {
+            long outputSize = output.getData() == null ? 0 : output.getData().getBytes(StandardCharsets.UTF_8).length;
+            if (!current.isEmpty() && size + outputSize > maxBytes) {
+                windows.add(current);
+                current = new ArrayList<>();
+                size = 0;
+            }
+            current.add(output);
+            size += outputSize;
+        }
+        windows.add(current);
+
+        return windows;
+    }
+
+    /**
+     * Consume the messages, transformed by {@code transformer}. With {@code deferAck}, each output of the transformed
+     * publisher acknowledges the next {@code messageCount} messages once handed over.
+     */
+    private <T> Publisher<T> publisher(
+        final Consume task,
+        final RunContext runContext,
+        final Function<Flux<Consume.NatsMessageOutput>, Flux<T>> transformer,
+        final ToIntFunction<T> messageCount
+    ) throws Exception {
 
         final String subject = runContext.render(this.subject);
+        final List<String> filterSubjects = Stream
+            .concat(Stream.of(subject), runContext.render(this.subjects).asList(String.class).stream())
+            .distinct()
+            .toList();
         final String durableId = runContext.render(this.durableId).as(String.class).orElse(null);
+        final boolean ordered = runContext.render(this.ordered).as(Boolean.class).orElse(false);
+        if (ordered && durableId != null) {
+            throw new IllegalArgumentException("An ordered consumer is ephemeral, it can't be used with a durableId");
+        }
+        final Duration minFetchWait = runContext.render(this.minFetchWait).as(Duration.class).orElseThrow();
+        final AdaptiveFetch adaptiveFetch = new AdaptiveFetch(
+            batchSize,
+            runContext.render(this.maxBatchSize).as(Integer.class).orElse(batchSize),
+            minFetchWait,
+            runContext.render(this.maxFetchWait).as(Duration.class).orElse(minFetchWait)
+        );
+        final int bufferSize = runContext.render(this.bufferSize).as(Integer.class).orElseThrow();
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("The buffer size must be greater than 0");
+        }
+        final boolean push = runContext.render(this.push).as(Boolean.class).orElse(false);
+        final Long maxBatchBytes = runContext.render(this.maxBatchBytes).as(Long.class).orElse(null);
+        final Duration idleHeartbeat = runContext.render(this.idleHeartbeat).as(Duration.class).orElseThrow();
+        final boolean deferAck = !ordered && runContext.render(this.deferAck).as(Boolean.class).orElse(false);
+        final Long maxAckPending = runContext.render(this.maxAckPending).as(Integer.class).map(Integer::longValue).orElse(null);
+        final Duration ackWait = runContext.render(this.ackWait).as(Duration.class).orElse(null);
+        // messages emitted and waiting for their execution to be accepted, in emission order
+        final Queue<Message> ackWindow = new ConcurrentLinkedQueue<>();
         final ZonedDateTime startTime = Optional.ofNullable(since)
             .map(throwFunction(sinceDate -> ZonedDateTime.parse(runContext.render(sinceDate).as(String.class).orElse(null))))
             .orElse(null);
 
-        return Flux.create(emitter -> {
-            try (Connection connection = task.connect(runContext)) {
-                // create options
-                PullSubscribeOptions options = PullSubscribeOptions.builder()
-                    .configuration(ConsumerConfiguration.builder()
-                        .ackPolicy(AckPolicy.Explicit)
-                        .deliverPolicy(runContext.render(deliverPolicy).as(DeliverPolicy.class).orElseThrow())
-                        .startTime(startTime)
-                        .build()
-                    )
-                    .durable(durableId)
-                    .build();
-
-                // create subscription
-                JetStreamSubscription subscription = connection
-                    .jetStream(JetStreamOptions.DEFAULT_JS_OPTIONS)
-                    .subscribe(subject, options);
-
-                // fetch
-                while (isActive.get()) {
-                    List<Message> messages = subscription.fetch(batchSize, Duration.ofMillis(100));
-
-                    messages.forEach(message -> {
-                        Map<String, List<String>> headers;
-                        if (message.getHeaders() == null) {
-                            headers = Collections.emptyMap();
-                        } else {
-                            headers = message.getHeaders()
-                                .entrySet()
-                                .stream()
-                                .collect(
-                                    Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)
-                                );
-                        }
+        final Flux<Consume.NatsMessageOutput> flux = Flux.<Consume.NatsMessageOutput>create(emitter -> {
+            // wake up the fetch loop as soon as downstream requests more messages
+            final Lock demandLock = new ReentrantLock();
+            final Condition demandSignal = demandLock.newCondition();
+            emitter.onRequest(n -> {
+                demandLock.lock();
+                try {
+                    demandSignal.signalAll();
+                } finally {
+                    demandLock.unlock();
+                }
+            });
+
+            // run the blocking fetch loop on its own virtual thread, instead of holding the subscribing thread
+            Thread fetchThread = Thread.ofVirtual().name("nats-realtime-trigger-" + this.id).unstarted(() -> {
+                try (Connection connection = task.connect(runContext)) {
+                    JetStream jetStream = connection.jetStream(JetStreamOptions.DEFAULT_JS_OPTIONS);
+                    DeliverPolicy deliverPolicy = runContext.render(this.deliverPolicy).as(DeliverPolicy.class).orElseThrow();
 
-                        Consume.NatsMessageOutput output = Consume.NatsMessageOutput.builder()
-                            .subject(message.getSubject())
-                            .headers(headers)
-                            .data(new String(message.getData()))
-                            .timestamp(message.metaData().timestamp().toInstant())
-                            .build();
-
-                        emitter.next(output);
-                        message.ack(); // AckPolicy.Explicit
-                    });
-                    // The JetStreamSubscription#fetch method catches any thrown InterruptedException.
-                    // Let's check if the thread was interrupted, and if we need to stop.
-                    if (Thread.currentThread().isInterrupted()) {
-                        isActive.set(false);
+                    // create subscription
+                    MessageFetcher fetcher;
+                    if (ordered) {
+                        fetcher = MessageFetcher.push(jetStream.subscribe(
+                            subject,
+                            PushSubscribeOptions.builder()
+                                .ordered(true)
+                                .configuration(ConsumerConfiguration.builder()
+                                    .filterSubjects(filterSubjects)
+                                    .deliverPolicy(deliverPolicy)
+                                    .startTime(startTime)
+                                    .build()
+                                )
+                                .build()
+                        ));
+                    } else if (push) {
+                        fetcher = MessageFetcher.push(jetStream.subscribe(
+                            subject,
+                            PushSubscribeOptions.builder()
+                                .configuration(ConsumerConfiguration.builder()
+                                    .filterSubjects(filterSubjects)
+                                    .ackPolicy(AckPolicy.Explicit)
+                                    .maxAckPending(maxAckPending)
+                                    .ackWait(ackWait)
+                                    .flowControl(idleHeartbeat)
+                                    .deliverPolicy(deliverPolicy)
+                                    .startTime(startTime)
+                                    .build()
+                                )
+                                .durable(durableId)
+                                .build()
+                        ));
+                    } else {
+                        JetStreamSubscription subscription = jetStream.subscribe(
+                            subject,
+                            PullSubscribeOptions.builder()
+                                .configuration(ConsumerConfiguration.builder()
+                                    .filterSubjects(filterSubjects)
+                                    .ackPolicy(AckPolicy.Explicit)
+                                    .maxAckPending(maxAckPending)
+                                    .ackWait(ackWait)
+                                    .deliverPolicy(deliverPolicy)
+                                    .startTime(startTime)
+                                    .build()
+                                )
+                                .durable(durableId)
+                                .build()
+                        );
+                        fetcher = maxBatchBytes == null ? MessageFetcher.pull(subscription) : MessageFetcher.pull(subscription, maxBatchBytes);
                     }
+
+                    try {
+                        // fetch
+                        while (isActive.get() && !emitter.isCancelled()) {
+                            long demand = emitter.requestedFromDownstream();
+                            if (demand == 0) {
+                                demandLock.lock();
+                                try {
+                                    // re-check the demand under the lock to not miss a request, and periodically the stop flag
+                                    if (emitter.requestedFromDownstream() == 0 && !emitter.isCancelled()) {
+                                        demandSignal.await(adaptiveFetch.waitTime().toMillis(), TimeUnit.MILLISECONDS);
+                                    }
+                                } catch (InterruptedException e) {
+                                    isActive.set(false);
+                                } finally {
+                                    demandLock.unlock();
+                                }
+
+                                if (emitter.isCancelled()) {
+                                    isActive.set(false);
+                                }
+                                continue;
+                            }
+
+                            // only fetch what downstream is ready to receive, so messages are never buffered here
+                            int size = (int) Math.min(adaptiveFetch.batchSize(), demand);
+                            List<Message> messages = fetcher.fetch(size, adaptiveFetch.waitTime());
+                            adaptiveFetch.onFetch(messages.size());
+
+                            messages.forEach(message -> {
+                                Map<String, List<String>> headers;
+                                if (message.getHeaders() == null) {
+                                    headers = Collections.emptyMap();
+                                } else {
+                                    headers = message.getHeaders()
+                                        .entrySet()
+                                        .stream()
+                                        .collect(
+                                            Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)
+                                        );
+                                }
+
+                                Consume.NatsMessageOutput output = Consume.NatsMessageOutput.builder()
+                                    .subject(message.getSubject())
+                                    .headers(headers)
+                                    .data(new String(message.getData()))
+                                    .timestamp(message.metaData().timestamp().toInstant())
+                                    .build();
+
+                                if (deferAck) {
+                                    ackWindow.add(message);
+                                    emitter.next(output);
+                                } else {
+                                    emitter.next(output);
+                                    if (!ordered) {
+                                        message.ack(); // AckPolicy.Explicit
+                                    }
+                                }
+                            });
+                            // The MessageFetcher#fetch method catches any thrown InterruptedException.
+                            // Let's check if the thread was interrupted, and if we need to stop.
+                            if (Thread.currentThread().isInterrupted()) {
+                                isActive.set(false);
+                            }
+                        }
+                    } finally {
+                        fetcher.close();
+                    }
+                    emitter.complete();
+                } catch (Exception throwable) {
+                    emitter.error(throwable);
+                } finally {
+                    waitForTermination.countDown();
                 }
-                emitter.complete();
-            } catch (Exception throwable) {
-                emitter.error(throwable);
-            } finally {
-                waitForTermination.countDown();
-            }
-        });
+            });
+            // interrupt a pending fetch when downstream cancels
+            emitter.onCancel(fetchThread::interrupt);
+            fetchThread.start();
+        }).limitRate(bufferSize);
+
+        if (!deferAck) {
+            return flux.transform(transformer);
+        }
+
+        return flux
+            .transform(transformer)
+            .transform(Operators.<T, T>lift((scannable, actual) -> new AckAfterNext<>(actual, ackWindow, messageCount)));
     }
 
     /**
@@ -221,4 +607,113 @@ public class RealtimeTrigger extends AbstractTrigger implements RealtimeTriggerI
             }
         }
     }
+
+    @Builder
+    @Getter
+    public static class NatsMessagesOutput implements io.kestra.core.models.tasks.Output {
+        @Schema(
+            title = "Number of messages in the window."
+        )
+        private final Integer count;
+
+        @Schema(
+            title = "The messages of the window, in the order they were consumed."
+        )
+        private final List<Consume.NatsMessageOutput> messages;
+    }
+
+    /**
+     * Acknowledge the oldest messages of the ack window once downstream returns from {@code onNext}, meaning that the
+     * execution created for them has been accepted. Messages are emitted in order, and each output covers the next
+     * {@code messageCount} messages.
+     * <p>
+     * An operator failing in {@code onNext}, like the creation of the execution, doesn't throw: it cancels its upstream
+     * and signals the error downstream. The subscription is wrapped to detect that cancellation, in which case the
+     * messages of the window are negatively acknowledged to be redelivered instead.
+     */
+    private static final class AckAfterNext<T> implements CoreSubscriber<T>, Subscription {
+        private final CoreSubscriber<? super T> actual;
+
+        private final Queue<Message> ackWindow;
+
+        private final ToIntFunction<T> messageCount;
+
+        private Subscription upstream;
+
+        private volatile boolean cancelled;
+
+        private AckAfterNext(CoreSubscriber<? super T> actual, Queue<Message> ackWindow, ToIntFunction<T> messageCount) {
+            this.actual = actual;
+            this.ackWindow = ackWindow;
+            this.messageCount = messageCount;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.upstream = subscription;
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T value) {
+            actual.onNext(value);
+
+            if (cancelled) {
+                // downstream failed on this value, or stopped before it: nothing left in the window was handed over
+                nakWindow();
+                return;
+            }
+
+            for (int i = messageCount.applyAsInt(value); i > 0; i--) {
+                Message message = ackWindow.poll();
+                if (message == null) {
+                    break;
+                }
+
+                try {
+                    message.ack(); // AckPolicy.Explicit
+                } catch (IllegalStateException e) {
+                    // the connection is already closed, the message will be redelivered
+                }
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            nakWindow();
+            actual.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+        }
+
+        private void nakWindow() {
+            Message message;
+            while ((message = ackWindow.poll()) != null) {
+                try {
+                    message.nak();
+                } catch (IllegalStateException e) {
+                    // the connection is already closed, the message will be redelivered after the ack wait
+                }
+            }
+        }
+    }
 }
@@ -57,4 +57,13 @@ public interface SubscribeInterface {
     )
     @NotNull
     Property<DeliverPolicy> getDeliverPolicy();
+
+    @Schema(
+        title = "Use an ordered consumer",
+        description = "An ordered consumer is an ephemeral push consumer without acknowledgements, with flow control, " +
+            "that is transparently recreated when a gap in the sequence is detected. " +
+            "It is the cheapest way to scan a stream when messages don't need to be acknowledged, " +
+            "but it can't be used with a `durableId`."
+    )
+    Property<Boolean> getOrdered();
 }
@@ -13,7 +13,11 @@ import lombok.*;
 import lombok.experimental.SuperBuilder;
 import org.slf4j.Logger;
 
+import java.net.URI;
+import java.nio.file.Files;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
 import java.util.Optional;
 
 @SuperBuilder
@@ -61,6 +65,8 @@ public class Trigger extends AbstractTrigger implements PollingTriggerInterface,
     private Property<String> password;
     private Property<String> token;
     private Property<String> creds;
+    @Builder.Default
+    private Property<Boolean> sharedConnection = Property.of(false);
     private String subject;
     private Property<String> durableId;
     private Property<String> since;
@@ -73,19 +79,78 @@ public class Trigger extends AbstractTrigger implements PollingTriggerInterface,
     @Builder.Default
     private Property<DeliverPolicy> deliverPolicy = Property.of(DeliverPolicy.All);
     @Builder.Default
+    private Property<Consume.AckMode> ackMode = Property.of(Consume.AckMode.PER_MESSAGE);
+    @Builder.Default
+    private Property<Consume.DataFormat> dataFormat = Property.of(Consume.DataFormat.BASE64);
+    @Builder.Default
+    private Property<Boolean> prefetch = Property.of(false);
+    @Builder.Default
+    private Property<Integer> concurrency = Property.of(1);
+    @Builder.Default
+    private Property<Boolean> ordered = Property.of(false);
+    @Builder.Default
+    private Property<Boolean> checkPending = Property.of(true);
+    private Property<Long> maxBatchBytes;
+    private Property<Duration> ackWait;
+    private Property<Integer> maxAckPending;
+    @Builder.Default
     private final Duration interval = Duration.ofSeconds(60);
 
+    @Schema(
+        title = "The min interval between two runs, enabling an adaptive interval",
+        description = "When set, the trigger is evaluated every `minInterval`, but only consumes once the current " +
+            "interval has elapsed. The current interval starts at `interval`; it is halved down to `minInterval` " +
+            "when messages are left pending on the consumer after a run, doubled up to `maxInterval` when a run " +
+            "finds no message, and goes back to `interval` when a run drains the consumer. " +
+            "The backlog is only tracked on durable or `continuous` consumers. " +
+            "The current interval is kept in the memory of the worker evaluating the trigger, so it assumes the trigger " +
+            "is always evaluated by the same worker: with several workers, each one keeps its own interval and the " +
+            "trigger can run more often than the current interval."
+    )
+    private Duration minInterval;
+
+    @Schema(
+        title = "The max interval between two runs when the interval is adaptive",
+        description = "Only used when `minInterval` is set. By default, `interval` is the max interval."
+    )
+    private Duration maxInterval;
+
+    @Schema(
+        title = "Whether to keep consuming between evaluations",
+        description = "Instead of connecting and subscribing on each evaluation, the worker keeps a connection and a " +
+            "consumer open and spills the messages to a local file in the background, so each evaluation only hands " +
+            "over the messages received since the previous one. `maxRecords` bounds the messages spilled between two " +
+            "evaluations, and `maxDuration` is not used. Requires the `AFTER_STORE` ack mode: messages are acknowledged " +
+            "one by one once stored, a batch that fails to be stored is handed over again on the next evaluation, and, unless `ackWait` is set, the consumer ack wait is extended to 3 intervals, or 3 `maxInterval` " +
+            "with an adaptive interval, so the messages spilled when the consumer fails or is closed are redelivered. The consumer is " +
+            "closed after the same duration without evaluation. " +
+            "Cannot be used with a `concurrency` or an `ordered` consumer."
+    )
+    @Builder.Default
+    private Property<Boolean> continuous = Property.of(false);
+
     @Override
     public Optional<Execution> evaluate(ConditionContext conditionContext, TriggerContext context) throws Exception {
         RunContext runContext = conditionContext.getRunContext();
         Logger logger = runContext.logger();
 
+        AdaptiveInterval adaptiveInterval = null;
+        if (minInterval != null) {
+            adaptiveInterval = AdaptiveInterval.of(context.uid(), minInterval, interval, this.maxRunInterval(), Instant.now());
+            if (!adaptiveInterval.isDue(Instant.now())) {
+                return Optional.empty();
+            }
+        }
+
         Consume task = Consume.builder()
             .id(id)
             .type(Consume.class.getName())
             .url(url)
             .username(username)
             .password(password)
+            .token(token)
+            .creds(creds)
+            .sharedConnection(sharedConnection)
             .subject(subject)
             .durableId(durableId)
             .since(since)
@@ -94,8 +159,28 @@ public class Trigger extends AbstractTrigger implements PollingTriggerInterface,
             .maxRecords(maxRecords)
             .maxDuration(maxDuration)
             .deliverPolicy(deliverPolicy)
+            .ackMode(ackMode)
+            .dataFormat(dataFormat)
+            .prefetch(prefetch)
+            .concurrency(concurrency)
+            .ordered(ordered)
+            .checkPending(checkPending)
+            .maxBatchBytes(maxBatchBytes)
+            .ackWait(ackWait)
+            .maxAckPending(maxAckPending)
             .build();
-        Consume.Output run = task.run(runContext);
+
+        Consume.Output run;
+        if (runContext.render(continuous).as(Boolean.class).orElse(false)) {
+            run = this.swapContinuous(task, runContext, context);
+        } else {
+            run = task.run(runContext);
+        }
+
+        if (adaptiveInterval != null) {
+            adaptiveInterval.onRun(Instant.now(), run.getMessagesCount(), run.getPendingCount());
+            logger.debug("Next run of '{}' in {}", id, adaptiveInterval.current());
+        }
 
         if (logger.isDebugEnabled()) {
             logger.debug("Found '{}' messages from '{}'", run.getMessagesCount(), runContext.render(subject));
@@ -109,4 +194,92 @@ public class Trigger extends AbstractTrigger implements PollingTriggerInterface,
 
         return Optional.of(execution);
     }
+
+    @Override
+    public ZonedDateTime nextEvaluationDate(ConditionContext conditionContext, Optional<? extends TriggerContext> last) {
+        return this.nextEvaluationDate();
+    }
+
+    @Override
+    public ZonedDateTime nextEvaluationDate() {
+        // with an adaptive interval, evaluations are skipped until the current interval has elapsed
+        return ZonedDateTime.now().plus(Optional.ofNullable(minInterval).orElse(interval));
+    }
+
+    /**
+     * The max duration between two runs, {@code maxInterval} when the interval is adaptive.
+     */
+    private Duration maxRunInterval() {
+        if (minInterval == null) {
+            return interval;
+        }
+
+        return Optional.ofNullable(maxInterval).orElse(interval);
+    }
+
+    private Consume.Output swapContinuous(Consume task, RunContext runContext, TriggerContext context) throws Exception {
+        if (runContext.render(concurrency).as(Integer.class).orElse(1) > 1) {
+            throw new IllegalArgumentException("A continuous trigger is read by a single subscription, it can't be used with a concurrency");
+        }
+
+        // the spill is local to the worker, messages must stay unacknowledged until stored to survive a failure or an eviction
+        if (runContext.render(ackMode).as(Consume.AckMode.class).orElse(Consume.AckMode.PER_MESSAGE) != Consume.AckMode.AFTER_STORE ||
+            runContext.render(ordered).as(Boolean.class).orElse(false)) {
+            throw new IllegalArgumentException("A continuous trigger acknowledges messages once stored, it requires the AFTER_STORE ack mode and can't be used with an ordered consumer");
+        }
+
+        // one consumer per trigger, replaced when its consumer configuration changes
+        String key = NatsConnectionPool.fingerprint(
+            context.getTenantId(),
+            context.getNamespace(),
+            context.getFlowId(),
+            id,
+            runContext.render(url),
+            runContext.render(subject),
+            runContext.render(durableId).as(String.class).orElse(null),
+            runContext.render(since).as(String.class).orElse(null),
+            runContext.render(deliverPolicy).as(DeliverPolicy.class).map(Enum::name).orElse(null),
+            runContext.render(ackMode).as(Consume.AckMode.class).map(Enum::name).orElse(null),
+            runContext.render(dataFormat).as(Consume.DataFormat.class).map(Enum::name).orElse(null),
+            String.valueOf(runContext.render(prefetch).as(Boolean.class).orElse(false)),
+            String.valueOf(batchSize),
+            runContext.render(maxBatchBytes).as(Long.class).map(String::valueOf).orElse(null),
+            runContext.render(ackWait).as(Duration.class).map(String::valueOf).orElse(null),
+            runContext.render(maxAckPending).as(Integer.class).map(String::valueOf).orElse(null)
+        );
+        // evaluations can be skipped up to the max interval, which must neither evict the consumer nor redeliver
+        Duration idleTimeout = this.maxRunInterval().multipliedBy(3);
+
+        ContinuousConsumer consumer = ContinuousConsumer.acquire(key, idleTimeout, () -> ContinuousConsumer.create(task, runContext, idleTimeout));
+        ContinuousConsumer.Batch batch = consumer.swap();
+        boolean retried = false;
+        try {
+            if (batch.count() == 0) {
+                return Consume.Output.builder()
+                    .messagesCount(0)
+                    .pendingCount(0L)
+                    .build();
+            }
+
+            URI uri;
+            try {
+                uri = runContext.storage().putFile(batch.file().toFile());
+            } catch (Exception e) {
+                // hand the same messages over on the next evaluation, rather than letting newer ones be stored first
+                retried = consumer.retry(batch);
+                throw e;
+            }
+            consumer.acknowledge(batch);
+
+            return Consume.Output.builder()
+                .messagesCount(batch.count())
+                .uri(uri)
+                .pendingCount(batch.pendingCount())
+                .build();
+        } finally {
+            if (!retried) {
+                Files.deleteIfExists(batch.file());
+            }
+        }
+    }
 }
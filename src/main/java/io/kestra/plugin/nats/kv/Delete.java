@@ -5,18 +5,22 @@ import io.kestra.core.models.annotations.Plugin;
 import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
-import io.kestra.core.models.tasks.VoidOutput;
 import io.kestra.core.runners.RunContext;
+import io.kestra.plugin.nats.JetStreamAsyncPublisher;
 import io.kestra.plugin.nats.NatsConnection;
 import io.nats.client.Connection;
 import io.nats.client.KeyValue;
+import io.nats.client.PurgeOptions;
+import io.nats.client.api.PurgeResponse;
+import io.nats.client.impl.NatsMessage;
+import io.nats.client.support.NatsKeyValueUtil;
+import io.nats.client.support.Validator;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -48,9 +52,26 @@ import java.util.Map;
                       - key2
                 """
         ),
+        @Example(
+            title = "Purge all the pairs whose key starts with `tenant1.`.",
+            full = true,
+            code = """
+                id: nats_kv_delete_by_filter
+                namespace: company.team
+
+                tasks:
+                  - id: delete
+                    type: io.kestra.plugin.nats.kv.Delete
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_passwd
+                    bucketName: my_bucket
+                    keyFilter: tenant1.>
+                """
+        ),
     }
 )
-public class Delete extends NatsConnection implements RunnableTask<VoidOutput> {
+public class Delete extends NatsConnection implements RunnableTask<Delete.Output> {
 
      @Schema(
           title = "The name of the key value bucket."
@@ -60,22 +81,108 @@ public class Delete extends NatsConnection implements RunnableTask<VoidOutput> {
      private String bucketName;
 
      @Schema(
-          title = "The keys of Key/Value pairs."
+          title = "The keys of Key/Value pairs.",
+          description = "Required unless `keyFilter` is set."
      )
-     @NotNull
      private Property<List<String>> keys;
 
+     @Schema(
+          title = "Whether to publish all the delete markers before waiting for their acknowledgements.",
+          description = "Delete markers are published asynchronously to the subjects of the bucket keys, with at most " +
+               "`maxInFlight` markers waiting for their acknowledgement, instead of one round trip per key."
+     )
+     @Builder.Default
+     private Property<Boolean> bulk = Property.of(false);
+
+     @Schema(
+          title = "The max number of delete markers waiting for their acknowledgement in bulk mode."
+     )
+     @Min(1)
+     @Builder.Default
+     private Property<Integer> maxInFlight = Property.of(1000);
+
+     @Schema(
+          title = "A key filter, with `*` and `>` wildcards, of the pairs to purge.",
+          description = "All the pairs matching the filter, for example `tenant1.>`, are purged from the stream backing " +
+               "the bucket in a single server-side operation, instead of deleting the keys one by one. " +
+               "Unlike a delete, a purge removes the history of the keys and leaves no delete marker, so watchers are " +
+               "not notified."
+     )
+     private Property<String> keyFilter;
+
+     @Schema(
+          title = "The number of most recent revisions to keep when purging with `keyFilter`.",
+          description = "Revisions are counted per subject matching the filter, so the most recent revisions of every matching key are kept."
+     )
+     @Min(0)
+     private Property<Long> keep;
+
      @Override
-     public VoidOutput run(RunContext runContext) throws Exception {
+     public Delete.Output run(RunContext runContext) throws Exception {
+          if ((this.keys == null) == (this.keyFilter == null)) {
+               throw new IllegalArgumentException("Exactly one of 'keys' or 'keyFilter' must be set");
+          }
+
           try (Connection connection = super.connect(runContext)) {
-               KeyValue keyValue = connection.keyValue(runContext.render(this.bucketName));
+               String bucketName = runContext.render(this.bucketName);
+
+               if (this.keyFilter != null) {
+                    String keyFilter = Validator.validateKvKeyWildcardAllowedRequired(runContext.render(this.keyFilter).as(String.class).orElseThrow());
+
+                    PurgeOptions.Builder purgeOptions = PurgeOptions.builder()
+                         .subject(KeyValueSubjects.readPrefix(bucketName) + keyFilter);
+                    runContext.render(this.keep).as(Long.class).ifPresent(purgeOptions::keep);
 
-               for (String key : runContext.render(this.keys).asList(String.class)) {
-                    keyValue.delete(key);
+                    PurgeResponse response = connection.jetStreamManagement()
+                         .purgeStream(NatsKeyValueUtil.toStreamName(bucketName), purgeOptions.build());
+
+                    return Output.builder()
+                         .count(response.getPurged())
+                         .build();
+               }
+
+               KeyValue keyValue = connection.keyValue(bucketName);
+               List<String> keys = runContext.render(this.keys).asList(String.class);
+
+               if (runContext.render(this.bulk).as(Boolean.class).orElse(false)) {
+                    JetStreamAsyncPublisher publisher = new JetStreamAsyncPublisher(
+                         connection.jetStream(),
+                         runContext.render(this.maxInFlight).as(Integer.class).orElseThrow()
+                    );
+
+                    String subjectPrefix = KeyValueSubjects.writePrefix(connection, bucketName);
+                    for (String key : keys) {
+                         publisher.publish(NatsMessage.builder()
+                              .subject(subjectPrefix + Validator.validateNonWildcardKvKeyRequired(key))
+                              .headers(NatsKeyValueUtil.getDeleteHeaders())
+                              .build());
+                    }
+                    publisher.await();
+
+                    if (publisher.getFailed() > 0) {
+                         throw new Exception(publisher.getFailed() + " delete marker(s) were not acknowledged by the bucket", publisher.getFirstError());
+                    }
+               } else {
+                    for (String key : keys) {
+                         keyValue.delete(key);
+                    }
                }
 
-               return new VoidOutput();
+               return Output.builder()
+                    .count((long) keys.size())
+                    .build();
           }
      }
 
+     @Getter
+     @Builder
+     public static class Output implements io.kestra.core.models.tasks.Output {
+
+          @Schema(
+               title = "The number of pairs deleted, or of messages purged with `keyFilter`."
+          )
+          private Long count;
+
+     }
+
 }
@@ -7,24 +7,43 @@ import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.core.utils.Rethrow.ConsumerChecked;
 import io.kestra.plugin.nats.NatsConnection;
 import io.nats.client.Connection;
 import io.nats.client.KeyValue;
 import io.nats.client.api.KeyValueEntry;
+import io.nats.client.api.KeyValueWatchOption;
+import io.nats.client.api.KeyValueWatcher;
+import io.nats.client.impl.NatsKeyValueWatchSubscription;
+import io.nats.client.support.Validator;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
-import java.util.stream.Collectors;
-
-import static io.kestra.core.utils.Rethrow.throwFunction;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 @SuperBuilder
 @ToString
@@ -74,6 +93,25 @@ import static io.kestra.core.utils.Rethrow.throwFunction;
                       - key2: 3
 				"""
         ),
+        @Example(
+            title = "Export a whole NATS Key/Value bucket to an internal storage file.",
+            full = true,
+            code = """
+                id: nats_kv_export
+                namespace: company.team
+
+                tasks:
+                  - id: get
+                    type: io.kestra.plugin.nats.kv.Get
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_passwd
+                    bucketName: my_bucket
+                    keys:
+                      - ">"
+                    store: true
+                """
+        ),
     }
 )
 public class Get extends NatsConnection implements RunnableTask<Get.Output> {
@@ -88,7 +126,9 @@ public class Get extends NatsConnection implements RunnableTask<Get.Output> {
     private String bucketName;
 
     @Schema(
-        title = "The keys of Key/Value pairs."
+        title = "The keys of Key/Value pairs.",
+        description = "A key can contain `*` and `>` wildcards, for example `tenant1.>`, to get all the current pairs " +
+            "whose key matches it; `>` gets the whole bucket."
     )
     @NotNull
     private Property<List<String>> keys;
@@ -98,46 +138,183 @@ public class Get extends NatsConnection implements RunnableTask<Get.Output> {
     )
     private Property<Map<String, Long>> keyRevisions;
 
+    @Schema(
+        title = "The max number of get requests in flight.",
+        description = "Keys are fetched concurrently, so that fetching many keys doesn't cost one round trip per key."
+    )
+    @Min(1)
+    @Builder.Default
+    private Property<Integer> concurrency = Property.of(10);
+
+    @Schema(
+        title = "Whether to store the pairs in an internal storage file instead of the outputs.",
+        description = "Pairs are streamed to an Ion file with one record per pair, with a `key`, a `value` and a `revision` " +
+            "field, so that large lookups or whole bucket exports don't bloat the execution. The file can be used as the " +
+            "`from` of a `Put` task."
+    )
+    @Builder.Default
+    private Property<Boolean> store = Property.of(false);
+
     @Override
     public Get.Output run(RunContext runContext) throws Exception {
         try (Connection connection = super.connect(runContext)) {
             KeyValue keyValue = connection.keyValue(runContext.render(this.bucketName));
 
-            List<KeyValueEntry> entries = new ArrayList<>();
+            List<Callable<KeyValueEntry>> requests = new ArrayList<>();
+            List<String> keyFilters = new ArrayList<>();
             if (this.keyRevisions == null) {
                 for (String key : runContext.render(this.keys).asList(String.class)) {
-                    entries.add(keyValue.get(key));
+                    if (key.contains("*") || key.contains(">")) {
+                        keyFilters.add(Validator.validateKvKeyWildcardAllowedRequired(key));
+                    } else {
+                        requests.add(() -> keyValue.get(key));
+                    }
                 }
             } else {
                 for (Map.Entry<String, Long> entry : runContext.render(this.keyRevisions).asMap(String.class, Long.class).entrySet()) {
-                    entries.add(keyValue.get(entry.getKey(), entry.getValue()));
+                    requests.add(() -> keyValue.get(entry.getKey(), entry.getValue()));
+                }
+            }
+            int concurrency = runContext.render(this.concurrency).as(Integer.class).orElse(1);
+
+            if (runContext.render(this.store).as(Boolean.class).orElse(false)) {
+                File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+                AtomicLong count = new AtomicLong();
+
+                try (OutputStream output = new BufferedOutputStream(new FileOutputStream(tempFile))) {
+                    ConsumerChecked<KeyValueEntry, Exception> writer = entry -> {
+                        Map<String, Object> record = new LinkedHashMap<>();
+                        record.put("key", entry.getKey());
+                        record.put("value", mapper.readValue(entry.getValue(), Object.class));
+                        record.put("revision", entry.getRevision());
+
+                        FileSerde.write(output, record);
+                        count.incrementAndGet();
+                    };
+
+                    pipeline(requests, concurrency, writer);
+                    watch(keyValue, keyFilters, writer);
                 }
+
+                return Output.builder()
+                    .uri(runContext.storage().putFile(tempFile))
+                    .count(count.get())
+                    .build();
             }
 
-            Map<String, Object> result = entries.stream()
-                .filter(Objects::nonNull)
-                .collect(
-                    Collectors.toMap(
-                        KeyValueEntry::getKey,
-                        throwFunction(entry -> mapper.readValue(entry.getValue(), Object.class))
-                    )
-                );
+            Map<String, Object> result = new LinkedHashMap<>();
+            ConsumerChecked<KeyValueEntry, Exception> collector = entry -> result.put(entry.getKey(), mapper.readValue(entry.getValue(), Object.class));
+            pipeline(requests, concurrency, collector);
+            watch(keyValue, keyFilters, collector);
 
             return Output.builder()
                 .output(result)
+                .count((long) result.size())
                 .build();
         }
     }
 
+    /**
+     * Run the requests on virtual threads with at most {@code concurrency} of them in flight,
+     * and hand the found entries over to the consumer in the order of the requests.
+     */
+    private static void pipeline(List<Callable<KeyValueEntry>> requests, int concurrency, ConsumerChecked<KeyValueEntry, Exception> consumer) throws Exception {
+        Deque<Future<KeyValueEntry>> window = new ArrayDeque<>(concurrency);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (Callable<KeyValueEntry> request : requests) {
+                    if (window.size() == concurrency) {
+                        consume(window.poll(), consumer);
+                    }
+                    window.add(executor.submit(request));
+                }
+
+                while (!window.isEmpty()) {
+                    consume(window.poll(), consumer);
+                }
+            } catch (Exception e) {
+                window.forEach(f -> f.cancel(true));
+                throw e;
+            }
+        }
+    }
+
+    private static void consume(Future<KeyValueEntry> future, ConsumerChecked<KeyValueEntry, Exception> consumer) throws Exception {
+        KeyValueEntry entry;
+        try {
+            entry = future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+
+        if (entry != null) {
+            consumer.accept(entry);
+        }
+    }
+
+    /**
+     * Hand over the current entries of the keys matching the filters, as delivered by a watch of their latest values.
+     */
+    private static void watch(KeyValue keyValue, List<String> keyFilters, ConsumerChecked<KeyValueEntry, Exception> consumer) throws Exception {
+        if (keyFilters.isEmpty()) {
+            return;
+        }
+
+        CountDownLatch endOfData = new CountDownLatch(1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        KeyValueWatcher watcher = new KeyValueWatcher() {
+            @Override
+            public void watch(KeyValueEntry entry) {
+                // updates made after the current values were delivered are not part of the result
+                if (failure.get() != null || endOfData.getCount() == 0) {
+                    return;
+                }
+
+                try {
+                    consumer.accept(entry);
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            }
+
+            @Override
+            public void endOfData() {
+                endOfData.countDown();
+            }
+        };
+
+        try (NatsKeyValueWatchSubscription ignored = keyValue.watch(keyFilters, watcher, KeyValueWatchOption.IGNORE_DELETE)) {
+            endOfData.await();
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
     @Getter
     @Builder
     public static class Output implements io.kestra.core.models.tasks.Output {
 
         @Schema(
-            title = "The Key/Value pairs."
+            title = "The Key/Value pairs.",
+            description = "Only set when the pairs are not stored."
         )
         private Map<String, Object> output;
 
+        @Schema(
+            title = "The URI of the stored Key/Value pairs.",
+            description = "Only set when `store` is true."
+        )
+        private URI uri;
+
+        @Schema(
+            title = "The number of Key/Value pairs found."
+        )
+        private Long count;
+
     }
 
 }
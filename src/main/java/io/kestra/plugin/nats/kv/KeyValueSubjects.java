@@ -0,0 +1,48 @@
+package io.kestra.plugin.nats.kv;
+
+import io.nats.client.Connection;
+import io.nats.client.JetStreamApiException;
+import io.nats.client.api.External;
+import io.nats.client.api.Mirror;
+import io.nats.client.support.NatsKeyValueUtil;
+
+import java.io.IOException;
+
+/**
+ * Subjects of the messages backing the keys of a bucket, for the tasks publishing to them directly instead of going
+ * through {@link io.nats.client.KeyValue}.
+ */
+final class KeyValueSubjects {
+    private KeyValueSubjects() {
+    }
+
+    /**
+     * The prefix of the subjects to publish a key to, resolved like the jnats {@link io.nats.client.KeyValue}: a mirror
+     * bucket is written through the bucket it mirrors, prefixed by the API prefix of its external domain if any.
+     */
+    static String writePrefix(Connection connection, String bucketName) throws IOException, JetStreamApiException {
+        Mirror mirror = connection.jetStreamManagement()
+            .getStreamInfo(NatsKeyValueUtil.toStreamName(bucketName))
+            .getConfiguration()
+            .getMirror();
+
+        if (mirror == null) {
+            return NatsKeyValueUtil.toKeyPrefix(bucketName);
+        }
+
+        String prefix = NatsKeyValueUtil.toKeyPrefix(NatsKeyValueUtil.trimPrefix(mirror.getName()));
+        External external = mirror.getExternal();
+        if (external != null && external.getApi() != null) {
+            return external.getApi() + "." + prefix;
+        }
+
+        return prefix;
+    }
+
+    /**
+     * The prefix of the subjects the keys of a bucket are stored under.
+     */
+    static String readPrefix(String bucketName) {
+        return NatsKeyValueUtil.toKeyPrefix(bucketName);
+    }
+}
@@ -7,18 +7,30 @@ import io.kestra.core.models.annotations.PluginProperty;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.models.tasks.RunnableTask;
 import io.kestra.core.runners.RunContext;
+import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.serializers.JacksonMapper;
+import io.kestra.plugin.nats.JetStreamAsyncPublisher;
 import io.kestra.plugin.nats.NatsConnection;
 import io.nats.client.Connection;
 import io.nats.client.KeyValue;
+import io.nats.client.api.PublishAck;
+import io.nats.client.impl.NatsMessage;
+import io.nats.client.support.Validator;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import lombok.experimental.SuperBuilder;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static io.kestra.core.utils.Rethrow.throwConsumer;
 
 @SuperBuilder
 @ToString
@@ -50,6 +62,42 @@ import java.util.Map;
                         - subKey1: some other value
                 """
         ),
+        @Example(
+            title = "Put many Key/Value pairs without waiting for each acknowledgement.",
+            full = true,
+            code = """
+                id: nats_kv_put_bulk
+                namespace: company.team
+
+                tasks:
+                  - id: put
+                    type: io.kestra.plugin.nats.kv.Put
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_passwd
+                    bucketName: my_bucket
+                    bulk: true
+                    maxInFlight: 500
+                    values: "{{ outputs.previous.values }}"
+                """
+        ),
+        @Example(
+            title = "Put the Key/Value pairs of an internal storage file, with one `key` and `value` record per pair.",
+            full = true,
+            code = """
+                id: nats_kv_put_from_file
+                namespace: company.team
+
+                tasks:
+                  - id: put
+                    type: io.kestra.plugin.nats.kv.Put
+                    url: nats://localhost:4222
+                    username: nats_user
+                    password: nats_passwd
+                    bucketName: my_bucket
+                    from: "{{ outputs.some_task_with_output_file.uri }}"
+                """
+        ),
     }
 )
 public class Put extends NatsConnection implements RunnableTask<Put.Output> {
@@ -64,18 +112,86 @@ public class Put extends NatsConnection implements RunnableTask<Put.Output> {
     private String bucketName;
 
     @Schema(
-        title = "The Key/Value pairs."
+        title = "The Key/Value pairs.",
+        description = "Required unless `from` is set."
     )
-    @NotNull
     private Property<Map<String, Object>> values;
 
+    @Schema(
+        title = "An internal storage URI of the Key/Value pairs to put.",
+        description = "An Ion file with one record per pair, with a `key` and a `value` field. " +
+            "Records are streamed from the file and always published in bulk, so that files with millions of pairs don't " +
+            "have to fit in memory; only the number of pairs put is returned, not their revisions."
+    )
+    private Property<String> from;
+
+    @Schema(
+        title = "Whether to publish all the values before waiting for their acknowledgements.",
+        description = "Values are published asynchronously to the subjects of the bucket keys, with at most `maxInFlight` " +
+            "values waiting for their acknowledgement, instead of one round trip per key."
+    )
+    @Builder.Default
+    private Property<Boolean> bulk = Property.of(false);
+
+    @Schema(
+        title = "The max number of values waiting for their acknowledgement in bulk mode."
+    )
+    @Min(1)
+    @Builder.Default
+    private Property<Integer> maxInFlight = Property.of(1000);
+
     @Override
     public Put.Output run(RunContext runContext) throws Exception {
+        if ((this.values == null) == (this.from == null)) {
+            throw new IllegalArgumentException("Exactly one of 'values' or 'from' must be set");
+        }
+
         try (Connection connection = super.connect(runContext)) {
             KeyValue keyValue = connection.keyValue(runContext.render(this.bucketName));
 
+            if (this.from != null) {
+                URI from = new URI(runContext.render(this.from).as(String.class).orElseThrow());
+                if (!from.getScheme().equals("kestra")) {
+                    throw new IllegalArgumentException("Invalid from parameter, must be a Kestra internal storage URI");
+                }
+
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(from)))) {
+                    JetStreamAsyncPublisher publisher = this.publisher(runContext, connection);
+                    String subjectPrefix = KeyValueSubjects.writePrefix(connection, keyValue.getBucketName());
+
+                    FileSerde.readAll(reader)
+                        .doOnNext(throwConsumer(object -> {
+                            Map<String, Object> record = (Map<String, Object>) object;
+                            publish(publisher, subjectPrefix, (String) record.get("key"), record.get("value"), null);
+                        }))
+                        .blockLast();
+
+                    return Output.builder()
+                        .count(await(publisher))
+                        .build();
+                }
+            }
+
+            Map<String, Object> values = runContext.render(this.values).asMap(String.class, Object.class);
+
+            if (runContext.render(this.bulk).as(Boolean.class).orElse(false)) {
+                JetStreamAsyncPublisher publisher = this.publisher(runContext, connection);
+                String subjectPrefix = KeyValueSubjects.writePrefix(connection, keyValue.getBucketName());
+
+                Map<String, Long> revisions = new ConcurrentHashMap<>();
+                for (Map.Entry<String, Object> entry : values.entrySet()) {
+                    String key = entry.getKey();
+                    publish(publisher, subjectPrefix, key, entry.getValue(), ack -> revisions.put(key, ack.getSeqno()));
+                }
+
+                return Output.builder()
+                    .revisions(revisions)
+                    .count(await(publisher))
+                    .build();
+            }
+
             Map<String, Long> revisions = new HashMap<>();
-            for (Map.Entry<String, Object> entry : runContext.render(this.values).asMap(String.class, Object.class).entrySet()) {
+            for (Map.Entry<String, Object> entry : values.entrySet()) {
                 String key = entry.getKey();
 
                 long revision = keyValue.put(
@@ -88,10 +204,46 @@ public class Put extends NatsConnection implements RunnableTask<Put.Output> {
 
             return Output.builder()
                 .revisions(revisions)
+                .count((long) revisions.size())
                 .build();
         }
     }
 
+    private JetStreamAsyncPublisher publisher(RunContext runContext, Connection connection) throws Exception {
+        return new JetStreamAsyncPublisher(
+            connection.jetStream(),
+            runContext.render(this.maxInFlight).as(Integer.class).orElseThrow()
+        );
+    }
+
+    /**
+     * Publish a value to the subject backing its key, the revision of the key being the stream sequence of the message.
+     */
+    private static void publish(JetStreamAsyncPublisher publisher, String subjectPrefix, String key, Object value, Consumer<PublishAck> onAck) throws Exception {
+        Validator.validateNonWildcardKvKeyRequired(key);
+
+        NatsMessage message = NatsMessage.builder()
+            .subject(subjectPrefix + key)
+            .data(mapper.writeValueAsString(value).getBytes())
+            .build();
+
+        if (onAck == null) {
+            publisher.publish(message);
+        } else {
+            publisher.publish(message, onAck);
+        }
+    }
+
+    private static long await(JetStreamAsyncPublisher publisher) throws Exception {
+        publisher.await();
+
+        if (publisher.getFailed() > 0) {
+            throw new Exception(publisher.getFailed() + " value(s) were not acknowledged by the bucket", publisher.getFirstError());
+        }
+
+        return publisher.getAcked();
+    }
+
     @Getter
     @Builder
     public static class Output implements io.kestra.core.models.tasks.Output {
@@ -101,6 +253,11 @@ public class Put extends NatsConnection implements RunnableTask<Put.Output> {
         )
         private Map<String, Long> revisions;
 
+        @Schema(
+            title = "The number of Key/Value pairs put."
+        )
+        private Long count;
+
     }
 
 }
@@ -0,0 +1,56 @@
+package io.kestra.plugin.nats;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class AdaptiveFetchTest {
+    @Test
+    void growOnFullBatches() {
+        AdaptiveFetch fetch = new AdaptiveFetch(10, 50, Duration.ofMillis(100), Duration.ofSeconds(1));
+
+        fetch.onFetch(10);
+        assertThat(fetch.batchSize(), is(20));
+        fetch.onFetch(20);
+        assertThat(fetch.batchSize(), is(40));
+        fetch.onFetch(40);
+        assertThat(fetch.batchSize(), is(50));
+
+        // partial batches keep the size
+        fetch.onFetch(12);
+        assertThat(fetch.batchSize(), is(50));
+        assertThat(fetch.waitTime(), is(Duration.ofMillis(100)));
+    }
+
+    @Test
+    void backOffWhenIdle() {
+        AdaptiveFetch fetch = new AdaptiveFetch(10, 40, Duration.ofMillis(100), Duration.ofMillis(500));
+        fetch.onFetch(10);
+        fetch.onFetch(20);
+
+        fetch.onFetch(0);
+        assertThat(fetch.batchSize(), is(20));
+        assertThat(fetch.waitTime(), is(Duration.ofMillis(200)));
+        fetch.onFetch(0);
+        fetch.onFetch(0);
+        assertThat(fetch.batchSize(), is(10));
+        assertThat(fetch.waitTime(), is(Duration.ofMillis(500)));
+
+        fetch.onFetch(1);
+        assertThat(fetch.waitTime(), is(Duration.ofMillis(100)));
+    }
+
+    @Test
+    void fixedByDefault() {
+        AdaptiveFetch fetch = new AdaptiveFetch(10, 10, Duration.ofMillis(100), Duration.ofMillis(100));
+
+        fetch.onFetch(10);
+        fetch.onFetch(0);
+
+        assertThat(fetch.batchSize(), is(10));
+        assertThat(fetch.waitTime(), is(Duration.ofMillis(100)));
+    }
+}
@@ -0,0 +1,68 @@
+package io.kestra.plugin.nats;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptiveIntervalTest {
+    @Test
+    void shortenOnBacklogAndLengthenWhenIdle() {
+        AdaptiveInterval interval = new AdaptiveInterval(Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofMinutes(5));
+        Instant now = Instant.now();
+
+        interval.onRun(now, 10, 100);
+        assertThat(interval.current(), is(Duration.ofSeconds(30)));
+        interval.onRun(now, 10, 100);
+        interval.onRun(now, 10, 100);
+        assertThat(interval.current(), is(Duration.ofSeconds(10)));
+
+        // drained
+        interval.onRun(now, 10, 0);
+        assertThat(interval.current(), is(Duration.ofSeconds(60)));
+
+        // idle
+        interval.onRun(now, 0, 0);
+        assertThat(interval.current(), is(Duration.ofMinutes(2)));
+        interval.onRun(now, 0, 0);
+        interval.onRun(now, 0, 0);
+        assertThat(interval.current(), is(Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void dueOnceTheCurrentIntervalElapsed() {
+        AdaptiveInterval interval = new AdaptiveInterval(Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofMinutes(5));
+        Instant now = Instant.now();
+
+        assertThat(interval.isDue(now), is(true));
+
+        interval.onRun(now, 0, 0);
+        assertThat(interval.isDue(now.plusSeconds(60)), is(false));
+        // evaluations scheduled slightly early are not skipped
+        assertThat(interval.isDue(now.plusSeconds(118)), is(true));
+    }
+
+    @Test
+    void dropIntervalsNoLongerEvaluated() {
+        Instant now = Instant.now();
+        AdaptiveInterval interval = AdaptiveInterval.of("dropIntervalsNoLongerEvaluated", Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofMinutes(5), now);
+        interval.onRun(now, 0, 0);
+
+        assertThat(AdaptiveInterval.of("dropIntervalsNoLongerEvaluated", Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofMinutes(5), now.plusSeconds(60)), sameInstance(interval));
+
+        // not evaluated for 3 max intervals, the trigger starts over
+        AdaptiveInterval restarted = AdaptiveInterval.of("dropIntervalsNoLongerEvaluated", Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofMinutes(5), now.plus(Duration.ofMinutes(20)));
+        assertThat(restarted, not(sameInstance(interval)));
+        assertThat(restarted.current(), is(Duration.ofSeconds(60)));
+    }
+
+    @Test
+    void invalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveInterval(Duration.ofSeconds(60), Duration.ofSeconds(10), Duration.ofMinutes(5)));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveInterval(Duration.ofSeconds(10), Duration.ofSeconds(60), Duration.ofSeconds(30)));
+    }
+}
@@ -25,6 +25,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ConsumeTest extends NatsTest {
     @Inject
@@ -141,4 +142,312 @@ class ConsumeTest extends NatsTest {
         assertThat(result.size(), is(1));
         Assertions.assertEquals(base64Encoded("Second message"), result.get(0).get("data"));
     }
+
+    @Test
+    void consumeWithBatchAck() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithBatchAck." + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            connection.publish(subject, ("Message " + i).getBytes());
+        }
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        String durableId = "consumeWithBatchAck-" + UUID.randomUUID();
+        for (Consume.AckMode ackMode : List.of(Consume.AckMode.PER_BATCH, Consume.AckMode.AFTER_STORE)) {
+            Consume.Output output = Consume.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .durableId(Property.of(durableId + "-" + ackMode))
+                .deliverPolicy(Property.of(DeliverPolicy.All))
+                .pollDuration(Property.of(Duration.ofSeconds(1)))
+                .batchSize(2)
+                .ackMode(Property.of(ackMode))
+                .build()
+                .run(runContextFactory.of());
+
+            assertThat(output.getMessagesCount(), is(5));
+
+            // everything was acknowledged, nothing is redelivered to the same durable consumer
+            Consume.Output again = Consume.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .durableId(Property.of(durableId + "-" + ackMode))
+                .deliverPolicy(Property.of(DeliverPolicy.All))
+                .pollDuration(Property.of(Duration.ofSeconds(1)))
+                .ackMode(Property.of(ackMode))
+                .build()
+                .run(runContextFactory.of());
+
+            assertThat(again.getMessagesCount(), is(0));
+        }
+    }
+
+    @Test
+    void afterStoreAckWaitCoversTheRun() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.afterStoreAckWait." + UUID.randomUUID();
+        connection.publish(subject, "Message".getBytes());
+        connection.flush(Duration.ofSeconds(1));
+
+        String durableId = "afterStoreAckWait-" + UUID.randomUUID();
+        Consume.Output output = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of(durableId))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .maxDuration(Property.of(Duration.ofSeconds(90)))
+            .ackMode(Property.of(Consume.AckMode.AFTER_STORE))
+            .build()
+            .run(runContextFactory.of());
+
+        assertThat(output.getMessagesCount(), is(1));
+
+        JetStreamManagement jetStreamManagement = connection.jetStreamManagement();
+        ConsumerConfiguration consumerConfiguration = jetStreamManagement
+            .getConsumerInfo(jetStreamManagement.getStreamNames(subject).getFirst(), durableId)
+            .getConsumerConfiguration();
+        connection.close();
+
+        assertThat(consumerConfiguration.getAckWait(), is(Duration.ofSeconds(120)));
+        assertThat(consumerConfiguration.getMaxAckPending(), is(-1L));
+    }
+
+    @Test
+    void consumeWithDataFormat() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithDataFormat." + UUID.randomUUID();
+        connection.publish(subject, "{\"key\": \"value\"}".getBytes());
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        Map<Consume.DataFormat, Object> expected = Map.of(
+            Consume.DataFormat.STRING, "{\"key\": \"value\"}",
+            Consume.DataFormat.JSON, Map.of("key", "value")
+        );
+
+        for (Map.Entry<Consume.DataFormat, Object> entry : expected.entrySet()) {
+            Consume.Output output = Consume.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .deliverPolicy(Property.of(DeliverPolicy.All))
+                .pollDuration(Property.of(Duration.ofSeconds(1)))
+                .dataFormat(Property.of(entry.getKey()))
+                .build()
+                .run(runContextFactory.of());
+
+            List<Map<String, Object>> result = toMessages(output);
+
+            assertThat(result.size(), is(1));
+            assertThat(result.getFirst(), Matchers.hasEntry("data", entry.getValue()));
+            assertThat(result.getFirst(), Matchers.hasEntry(is("headers"), new HeaderMatcher(anEmptyMap())));
+        }
+    }
+
+    @Test
+    void consumeWithPrefetch() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithPrefetch." + UUID.randomUUID();
+        for (int i = 0; i < 25; i++) {
+            connection.publish(subject, ("Message " + i).getBytes());
+        }
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        String durableId = "consumeWithPrefetch-" + UUID.randomUUID();
+        Consume.Output output = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of(durableId))
+            .deliverPolicy(Property.of(DeliverPolicy.All))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .batchSize(4)
+            .maxRecords(Property.of(10))
+            .prefetch(Property.of(true))
+            .build()
+            .run(runContextFactory.of());
+
+        List<Map<String, Object>> result = toMessages(output);
+
+        assertThat(output.getMessagesCount(), is(10));
+        assertThat(result.getFirst(), Matchers.hasEntry("data", base64Encoded("Message 0")));
+        assertThat(result.getLast(), Matchers.hasEntry("data", base64Encoded("Message 9")));
+
+        // prefetched messages beyond maxRecords are redelivered to the next run
+        Consume.Output next = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of(durableId))
+            .deliverPolicy(Property.of(DeliverPolicy.All))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .prefetch(Property.of(true))
+            .build()
+            .run(runContextFactory.of());
+
+        assertThat(next.getMessagesCount(), is(15));
+    }
+
+    @Test
+    void consumeWithConcurrency() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithConcurrency." + UUID.randomUUID();
+        for (int i = 0; i < 50; i++) {
+            connection.publish(subject, ("Message " + i).getBytes());
+        }
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        Consume.Output output = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of("consumeWithConcurrency-" + UUID.randomUUID()))
+            .deliverPolicy(Property.of(DeliverPolicy.All))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .batchSize(5)
+            .maxRecords(Property.of(42))
+            .concurrency(Property.of(4))
+            .build()
+            .run(runContextFactory.of());
+
+        List<Map<String, Object>> result = toMessages(output);
+
+        assertThat(output.getMessagesCount(), is(42));
+        assertThat(result.size(), is(42));
+        assertThat(result.stream().map(message -> message.get("data")).distinct().count(), is(42L));
+    }
+
+    @Test
+    void concurrencyRequiresPerMessageAcks() {
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("kestra.concurrencyRequiresPerMessageAcks")
+            .ackMode(Property.of(Consume.AckMode.PER_BATCH))
+            .concurrency(Property.of(4))
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> task.run(runContextFactory.of()));
+    }
+
+    @Test
+    void consumeWithOrderedConsumer() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithOrderedConsumer." + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            connection.publish(subject, ("Message " + i).getBytes());
+        }
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        // without acknowledgements, every scan sees the whole stream
+        for (int run = 0; run < 2; run++) {
+            Consume.Output output = Consume.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .deliverPolicy(Property.of(DeliverPolicy.All))
+                .pollDuration(Property.of(Duration.ofSeconds(1)))
+                .ordered(Property.of(true))
+                .build()
+                .run(runContextFactory.of());
+
+            List<Map<String, Object>> result = toMessages(output);
+
+            assertThat(output.getMessagesCount(), is(5));
+            assertThat(result.getFirst(), Matchers.hasEntry("data", base64Encoded("Message 0")));
+            assertThat(result.getLast(), Matchers.hasEntry("data", base64Encoded("Message 4")));
+        }
+    }
+
+    @Test
+    void consumeWithCheckPending() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithCheckPending." + UUID.randomUUID();
+        connection.publish(subject, "Message".getBytes());
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        String durableId = "consumeWithCheckPending-" + UUID.randomUUID();
+        Consume consume = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of(durableId))
+            .pollDuration(Property.of(Duration.ofSeconds(10)))
+            .checkPending(Property.of(true))
+            .build();
+
+        assertThat(consume.run(runContextFactory.of()).getMessagesCount(), is(1));
+
+        // nothing is pending anymore, the fetch is skipped instead of waiting for the poll duration
+        Instant start = Instant.now();
+        Consume.Output output = consume.run(runContextFactory.of());
+        assertThat(output.getMessagesCount(), is(0));
+        assertThat(Duration.between(start, Instant.now()), lessThan(Duration.ofSeconds(5)));
+    }
+
+    @Test
+    void consumeOrderedWithCheckPending() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeOrderedWithCheckPending." + UUID.randomUUID();
+        connection.publish(subject, "Message".getBytes());
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        // the message may already be pushed to the client when the consumer is created, it must still be consumed
+        Consume.Output output = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .ordered(Property.of(true))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .checkPending(Property.of(true))
+            .build()
+            .run(runContextFactory.of());
+
+        assertThat(output.getMessagesCount(), is(1));
+    }
+
+    @Test
+    void consumeWithMaxBatchBytes() throws Exception {
+        Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build());
+        String subject = "kestra.consumeWithMaxBatchBytes." + UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            connection.publish(subject, ("Message " + i + " " + "x".repeat(100)).getBytes());
+        }
+        connection.flush(Duration.ofSeconds(1));
+        connection.close();
+
+        Consume.Output output = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .batchSize(10)
+            .maxBatchBytes(Property.of(512L))
+            .build()
+            .run(runContextFactory.of());
+
+        // each pull request only holds a few messages, the consumption goes on until everything is fetched
+        assertThat(output.getMessagesCount(), is(10));
+    }
 }
@@ -0,0 +1,121 @@
+package io.kestra.plugin.nats;
+
+import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
+import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
+import io.kestra.core.utils.Await;
+import io.nats.client.Connection;
+import io.nats.client.Nats;
+import io.nats.client.Options;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class ContinuousConsumerTest extends NatsTest {
+    @Inject
+    private RunContextFactory runContextFactory;
+
+    @Test
+    void spillBetweenSwaps() throws Exception {
+        String subject = "kestra.continuousConsumer." + UUID.randomUUID();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .pollDuration(Property.of(Duration.ofMillis(100)))
+            .dataFormat(Property.of(Consume.DataFormat.STRING))
+            .ackMode(Property.of(Consume.AckMode.AFTER_STORE))
+            .build();
+        RunContext runContext = runContextFactory.of();
+
+        try (ContinuousConsumer consumer = ContinuousConsumer.acquire(UUID.randomUUID().toString(), Duration.ofMinutes(1), () -> ContinuousConsumer.create(task, runContext, Duration.ofMinutes(1)))) {
+            try (Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build())) {
+                connection.publish(subject, "first".getBytes());
+                connection.publish(subject, "second".getBytes());
+                connection.flush(Duration.ofSeconds(1));
+            }
+
+            List<Map<String, Object>> records = new ArrayList<>();
+            AtomicReference<ContinuousConsumer.Batch> swapped = new AtomicReference<>();
+            Await.until(() -> {
+                try {
+                    ContinuousConsumer.Batch batch = consumer.swap();
+                    try (BufferedReader reader = Files.newBufferedReader(batch.file())) {
+                        FileSerde.reader(reader, r -> records.add((Map<String, Object>) r));
+                    }
+                    consumer.acknowledge(batch);
+                    swapped.set(batch);
+                    Files.delete(batch.file());
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+                return records.size() == 2;
+            }, Duration.ofMillis(200), Duration.ofSeconds(10));
+
+            assertThat(records.stream().map(r -> r.get("data")).toList(), contains("first", "second"));
+            assertThat(swapped.get().count(), greaterThan(0));
+
+            ContinuousConsumer.Batch empty = consumer.swap();
+            assertThat(empty.count(), is(0));
+            Files.delete(empty.file());
+        }
+    }
+
+    @Test
+    void retryHandsTheBatchOverAgain() throws Exception {
+        String subject = "kestra.continuousConsumer." + UUID.randomUUID();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .pollDuration(Property.of(Duration.ofMillis(100)))
+            .dataFormat(Property.of(Consume.DataFormat.STRING))
+            .ackMode(Property.of(Consume.AckMode.AFTER_STORE))
+            .build();
+        RunContext runContext = runContextFactory.of();
+
+        try (ContinuousConsumer consumer = ContinuousConsumer.acquire(UUID.randomUUID().toString(), Duration.ofMinutes(1), () -> ContinuousConsumer.create(task, runContext, Duration.ofMinutes(1)))) {
+            try (Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build())) {
+                connection.publish(subject, "first".getBytes());
+                connection.flush(Duration.ofSeconds(1));
+            }
+
+            AtomicReference<ContinuousConsumer.Batch> swapped = new AtomicReference<>();
+            Await.until(() -> {
+                try {
+                    ContinuousConsumer.Batch batch = consumer.swap();
+                    if (batch.count() == 0) {
+                        Files.delete(batch.file());
+                        return false;
+                    }
+                    swapped.set(batch);
+                    return true;
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }, Duration.ofMillis(200), Duration.ofSeconds(10));
+
+            assertThat(consumer.retry(swapped.get()), is(true));
+
+            ContinuousConsumer.Batch again = consumer.swap();
+            assertThat(again.file(), is(swapped.get().file()));
+            assertThat(again.count(), is(1));
+            consumer.acknowledge(again);
+            Files.delete(again.file());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package io.kestra.plugin.nats;
+
+import io.nats.client.Connection;
+import io.nats.client.Nats;
+import io.nats.client.Options;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+class NatsConnectionPoolTest {
+    private static final NatsConnectionPool.Factory FACTORY = () -> Nats.connect(
+        Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build()
+    );
+
+    @Test
+    void shareConnectionForSameKey() throws Exception {
+        NatsConnectionPool pool = new NatsConnectionPool(Duration.ofMinutes(5));
+
+        Connection first = pool.acquire("key", FACTORY);
+        Connection second = pool.acquire("key", FACTORY);
+
+        assertThat(first.getServerInfo().getClientId(), is(second.getServerInfo().getClientId()));
+        assertThat(pool.size(), is(1));
+
+        first.close();
+        assertThat(second.getStatus(), is(Connection.Status.CONNECTED));
+        second.close();
+
+        Connection other = pool.acquire("otherKey", FACTORY);
+        assertThat(other.getServerInfo().getClientId(), not(first.getServerInfo().getClientId()));
+        assertThat(pool.size(), is(2));
+        other.close();
+    }
+
+    @Test
+    void drainOnlyReleasesTheLease() throws Exception {
+        NatsConnectionPool pool = new NatsConnectionPool(Duration.ofMinutes(5));
+
+        Connection first = pool.acquire("key", FACTORY);
+        Connection second = pool.acquire("key", FACTORY);
+
+        assertThat(first.drain(Duration.ofSeconds(1)).get(), is(true));
+        assertThat(second.getStatus(), is(Connection.Status.CONNECTED));
+        second.close();
+    }
+
+    @Test
+    void evictIdleConnection() throws Exception {
+        NatsConnectionPool pool = new NatsConnectionPool(Duration.ofMillis(50));
+
+        Connection connection = pool.acquire("key", FACTORY);
+        pool.evictIdle();
+        assertThat(pool.size(), is(1));
+
+        connection.close();
+        Thread.sleep(200);
+        pool.evictIdle();
+
+        assertThat(pool.size(), is(0));
+        assertThat(connection.getStatus(), is(Connection.Status.CLOSED));
+    }
+
+    @Test
+    void fingerprintSeparatesParts() {
+        assertThat(NatsConnectionPool.fingerprint("ab", "c"), not(NatsConnectionPool.fingerprint("a", "bc")));
+        assertThat(NatsConnectionPool.fingerprint("a", null), is(NatsConnectionPool.fingerprint("a", null)));
+    }
+}
@@ -24,6 +24,7 @@ import java.util.UUID;
 import static io.kestra.core.utils.Rethrow.throwConsumer;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ProduceTest extends NatsTest {
     private static final String BASE_SUBJECT = "kestra.produce";
@@ -182,6 +183,107 @@ class ProduceTest extends NatsTest {
         ));
     }
 
+    @Test
+    void produceMessagesFromInternalStorageWithoutRendering() throws Exception {
+        String subject = generateSubject();
+        RunContext runContext = runContextFactory.of();
+
+        File tempFile = runContext.workingDir().createTempFile(".ion").toFile();
+        try (OutputStream outputStream = new FileOutputStream(tempFile)) {
+            FileSerde.write(outputStream, Map.of(
+                "headers", Map.of(SOME_HEADER_KEY, "{{ not rendered }}"),
+                "data", "Hello {{ not rendered }}"
+            ));
+        }
+        URI uri = storageInterface.put(null, null, URI.create("/" + IdUtils.create() + ".ion"), new FileInputStream(tempFile));
+
+        Produce.Output produceOutput = Produce.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .from(uri.toString())
+            .renderFileMessages(Property.of(false))
+            .build()
+            .run(runContext);
+
+        Consume.Output consumeOutput = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of("produceWithoutRendering-" + UUID.randomUUID()))
+            .deliverPolicy(Property.of(DeliverPolicy.All))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .build()
+            .run(runContextFactory.of());
+
+        List<Map<String, Object>> result = toMessages(consumeOutput);
+
+        assertThat(produceOutput.getMessagesCount(), is(1));
+        assertThat(result, Matchers.contains(
+            Matchers.allOf(
+                Matchers.hasEntry(is("headers"), new HeaderMatcher(hasEntry(is(SOME_HEADER_KEY), contains("{{ not rendered }}")))),
+                Matchers.hasEntry("data", base64Encoded("Hello {{ not rendered }}"))
+            )
+        ));
+    }
+
+    @Test
+    void produceMessagesToJetStream() throws Exception {
+        String subject = generateSubject();
+        Produce.Output produceOutput = Produce.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .from(List.of(
+                Map.of("data", "First JetStream message"),
+                Map.of("data", "Second JetStream message"),
+                Map.of("data", "Third JetStream message")
+            ))
+            .jetStream(Property.of(true))
+            .maxInFlight(Property.of(2))
+            .build()
+            .run(runContextFactory.of());
+
+        assertThat(produceOutput.getMessagesCount(), is(3));
+        assertThat(produceOutput.getAckedCount(), is(3L));
+        assertThat(produceOutput.getFailedCount(), is(0L));
+        assertThat(produceOutput.getLastSequence() - produceOutput.getFirstSequence(), is(2L));
+
+        Consume.Output consumeOutput = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of("produceMessagesToJetStream-" + UUID.randomUUID()))
+            .deliverPolicy(Property.of(DeliverPolicy.All))
+            .pollDuration(Property.of(Duration.ofSeconds(1)))
+            .build()
+            .run(runContextFactory.of());
+
+        List<Map<String, Object>> result = toMessages(consumeOutput);
+
+        assertThat(result.size(), is(3));
+        assertThat(result.get(2), Matchers.hasEntry("data", base64Encoded("Third JetStream message")));
+    }
+
+    @Test
+    void failOnUnacknowledgedMessages() {
+        // no stream is bound to this subject, JetStream can't acknowledge the message
+        Produce task = Produce.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("unbound." + UUID.randomUUID())
+            .from(Map.of("data", "Unacknowledged message"))
+            .jetStream(Property.of(true))
+            .build();
+
+        assertThrows(Exception.class, () -> task.run(runContextFactory.of()));
+    }
+
     private static String generateSubject() {
         return BASE_SUBJECT + "." + UUID.randomUUID();
     }
@@ -15,10 +15,24 @@ import io.micronaut.context.ApplicationContext;
 import jakarta.inject.Inject;
 import jakarta.inject.Named;
 import org.junit.jupiter.api.Test;
+import io.kestra.core.utils.Await;
+import io.kestra.core.utils.Rethrow;
+import io.nats.client.Connection;
+import io.nats.client.JetStreamManagement;
+import io.nats.client.Nats;
+import io.nats.client.Options;
+import io.nats.client.api.ConsumerInfo;
+import io.nats.client.api.DeliverPolicy;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -26,6 +40,7 @@ import static io.kestra.plugin.nats.ProduceTest.SOME_HEADER_KEY;
 import static io.kestra.plugin.nats.ProduceTest.SOME_HEADER_VALUE;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class RealtimeTriggerTest extends NatsTest {
     @Inject
@@ -87,4 +102,367 @@ class RealtimeTriggerTest extends NatsTest {
             assertThat(result.get("timestamp"), notNullValue());
         }
     }
+
+    @Test
+    void publisherOnlyFetchesRequestedMessages() throws Exception {
+        String subject = "kestra.realtimeBackpressure." + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            Produce.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .from(Map.of("data", "message " + i))
+                .build()
+                .run(runContextFactory.of());
+        }
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .bufferSize(Property.of(2))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .build();
+
+        List<Consume.NatsMessageOutput> received = new CopyOnWriteArrayList<>();
+        BaseSubscriber<Consume.NatsMessageOutput> subscriber = new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(Subscription subscription) {
+                request(2);
+            }
+
+            @Override
+            protected void hookOnNext(Consume.NatsMessageOutput value) {
+                received.add(value);
+            }
+        };
+
+        try {
+            Flux.from(trigger.publisher(task, runContextFactory.of()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .subscribe(subscriber);
+
+            Await.until(() -> received.size() == 2, Duration.ofMillis(50), Duration.ofSeconds(10));
+            Thread.sleep(500);
+            assertThat(received.size(), is(2));
+
+            subscriber.request(3);
+            Await.until(() -> received.size() == 5, Duration.ofMillis(50), Duration.ofSeconds(10));
+            assertThat(received.stream().map(Consume.NatsMessageOutput::getData).toList(), contains("message 0", "message 1", "message 2", "message 3", "message 4"));
+        } finally {
+            trigger.kill();
+        }
+    }
+
+    @Test
+    void fixedFetchWaitByDefault() throws Exception {
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("kestra.realtimeFixedFetchWait")
+            .minFetchWait(Property.of(Duration.ofMillis(500)))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("kestra.realtimeFixedFetchWait")
+            .build();
+
+        // without a maxFetchWait, the wait is fixed to the minFetchWait
+        assertThat(trigger.publisher(task, runContextFactory.of()), notNullValue());
+    }
+
+    @Test
+    void orderedRejectsDurableId() {
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("kestra.realtimeOrdered")
+            .durableId(Property.of("realtimeOrdered"))
+            .ordered(Property.of(true))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("kestra.realtimeOrdered")
+            .build();
+
+        assertThrows(IllegalArgumentException.class, () -> trigger.publisher(task, runContextFactory.of()));
+    }
+
+    @Test
+    void deferAckOnceExecutionsAreAccepted() throws Exception {
+        String subject = "kestra.realtimeDeferAck." + UUID.randomUUID();
+        String durableId = "realtimeDeferAck" + UUID.randomUUID().toString().replace("-", "");
+        for (int i = 0; i < 3; i++) {
+            Produce.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .from(Map.of("data", "message " + i))
+                .build()
+                .run(runContextFactory.of());
+        }
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of(durableId))
+            .deferAck(Property.of(true))
+            .maxAckPending(Property.of(10))
+            .ackWait(Property.of(Duration.ofSeconds(30)))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .build();
+
+        List<Consume.NatsMessageOutput> received = new CopyOnWriteArrayList<>();
+        try (Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build())) {
+            JetStreamManagement jetStreamManagement = connection.jetStreamManagement();
+            String stream = jetStreamManagement.getStreamNames(subject).getFirst();
+
+            try {
+                Flux.from(trigger.publisher(task, runContextFactory.of()))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe(received::add);
+
+                Await.until(() -> received.size() == 3, Duration.ofMillis(50), Duration.ofSeconds(10));
+                Await.until(
+                    Rethrow.throwSupplier(() -> jetStreamManagement.getConsumerInfo(stream, durableId).getNumAckPending() == 0),
+                    Duration.ofMillis(50),
+                    Duration.ofSeconds(10)
+                );
+
+                ConsumerInfo consumerInfo = jetStreamManagement.getConsumerInfo(stream, durableId);
+                assertThat(consumerInfo.getConsumerConfiguration().getMaxAckPending(), is(10L));
+                assertThat(consumerInfo.getConsumerConfiguration().getAckWait(), is(Duration.ofSeconds(30)));
+            } finally {
+                trigger.kill();
+                jetStreamManagement.deleteConsumer(stream, durableId);
+            }
+        }
+    }
+
+    @Test
+    void deferAckRedeliversWhenExecutionFails() throws Exception {
+        String subject = "kestra.realtimeDeferAckFailure." + UUID.randomUUID();
+        String durableId = "realtimeDeferAckFailure" + UUID.randomUUID().toString().replace("-", "");
+        Produce.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .from(Map.of("data", "message"))
+            .build()
+            .run(runContextFactory.of());
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of(durableId))
+            .deferAck(Property.of(true))
+            .ackWait(Property.of(Duration.ofSeconds(30)))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .build();
+
+        try (Connection connection = Nats.connect(Options.builder().server("localhost:4222").userInfo("kestra", "k3stra").build())) {
+            JetStreamManagement jetStreamManagement = connection.jetStreamManagement();
+            String stream = jetStreamManagement.getStreamNames(subject).getFirst();
+
+            try {
+                // the execution of the first delivery can't be created
+                List<Throwable> errors = new CopyOnWriteArrayList<>();
+                Flux.from(trigger.publisher(task, runContextFactory.of()))
+                    .map(output -> {
+                        throw new IllegalStateException("execution rejected");
+                    })
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe(output -> {}, errors::add);
+                Await.until(() -> errors.size() == 1, Duration.ofMillis(50), Duration.ofSeconds(10));
+
+                // it's redelivered to the next subscription well before the ack wait
+                List<Consume.NatsMessageOutput> received = new CopyOnWriteArrayList<>();
+                Flux.from(trigger.publisher(task, runContextFactory.of()))
+                    .subscribeOn(Schedulers.boundedElastic())
+                    .subscribe(received::add);
+                Await.until(() -> received.size() == 1, Duration.ofMillis(50), Duration.ofSeconds(10));
+
+                assertThat(received.getFirst().getData(), is("message"));
+            } finally {
+                trigger.kill();
+                jetStreamManagement.deleteConsumer(stream, durableId);
+            }
+        }
+    }
+
+    @Test
+    void pushConsumer() throws Exception {
+        String subject = "kestra.realtimePush." + UUID.randomUUID();
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .deliverPolicy(Property.of(DeliverPolicy.New))
+            .push(Property.of(true))
+            .idleHeartbeat(Property.of(Duration.ofSeconds(1)))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .build();
+
+        List<Consume.NatsMessageOutput> received = new CopyOnWriteArrayList<>();
+        try {
+            Flux.from(trigger.publisher(task, runContextFactory.of()))
+                .subscribe(received::add);
+
+            // let the push consumer be created before publishing
+            Thread.sleep(500);
+            for (int i = 0; i < 3; i++) {
+                Produce.builder()
+                    .url("localhost:4222")
+                    .username(Property.of("kestra"))
+                    .password(Property.of("k3stra"))
+                    .subject(subject)
+                    .from(Map.of("data", "message " + i))
+                    .build()
+                    .run(runContextFactory.of());
+            }
+
+            Await.until(() -> received.size() == 3, Duration.ofMillis(50), Duration.ofSeconds(10));
+            assertThat(received.stream().map(Consume.NatsMessageOutput::getData).toList(), contains("message 0", "message 1", "message 2"));
+        } finally {
+            trigger.kill();
+        }
+    }
+
+    @Test
+    void multipleSubjects() throws Exception {
+        String prefix = "kestra.realtimeSubjects." + UUID.randomUUID();
+        for (String topic : List.of("first", "second", "ignored")) {
+            Produce.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(prefix + "." + topic)
+                .from(Map.of("data", topic))
+                .build()
+                .run(runContextFactory.of());
+        }
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(prefix + ".first")
+            .subjects(Property.of(List.of(prefix + ".second")))
+            .sharedConnection(Property.of(true))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(prefix + ".first")
+            .sharedConnection(Property.of(true))
+            .build();
+
+        List<Consume.NatsMessageOutput> received = new CopyOnWriteArrayList<>();
+        try {
+            Flux.from(trigger.publisher(task, runContextFactory.of()))
+                .subscribe(received::add);
+
+            Await.until(() -> received.size() == 2, Duration.ofMillis(50), Duration.ofSeconds(10));
+            Thread.sleep(500);
+            assertThat(received.stream().map(Consume.NatsMessageOutput::getData).toList(), containsInAnyOrder("first", "second"));
+        } finally {
+            trigger.kill();
+        }
+    }
+
+    @Test
+    void coalesceMessagesIntoWindows() throws Exception {
+        String subject = "kestra.realtimeWindow." + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            Produce.builder()
+                .url("localhost:4222")
+                .username(Property.of("kestra"))
+                .password(Property.of("k3stra"))
+                .subject(subject)
+                .from(Map.of("data", "message " + i))
+                .build()
+                .run(runContextFactory.of());
+        }
+
+        RealtimeTrigger trigger = RealtimeTrigger.builder()
+            .id("watch")
+            .type(RealtimeTrigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .windowMaxMessages(Property.of(3))
+            .windowLinger(Property.of(Duration.ofMillis(500)))
+            .build();
+        Consume task = Consume.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .build();
+
+        List<RealtimeTrigger.NatsMessagesOutput> received = new CopyOnWriteArrayList<>();
+        try {
+            Flux.from(trigger.windowPublisher(task, runContextFactory.of()))
+                .subscribe(received::add);
+
+            Await.until(() -> received.stream().mapToInt(RealtimeTrigger.NatsMessagesOutput::getCount).sum() == 5, Duration.ofMillis(50), Duration.ofSeconds(10));
+            assertThat(received.getFirst().getCount(), is(3));
+            assertThat(received.getFirst().getMessages().getFirst().getData(), is("message 0"));
+            assertThat(received.get(1).getCount(), is(2));
+        } finally {
+            trigger.kill();
+        }
+    }
 }
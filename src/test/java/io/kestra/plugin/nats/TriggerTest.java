@@ -1,5 +1,6 @@
 package io.kestra.plugin.nats;
 
+import io.kestra.core.models.conditions.ConditionContext;
 import io.kestra.core.models.executions.Execution;
 import io.kestra.core.models.property.Property;
 import io.kestra.core.queues.QueueFactoryInterface;
@@ -8,7 +9,9 @@ import io.kestra.core.repositories.LocalFlowRepositoryLoader;
 import io.kestra.core.runners.RunContextFactory;
 import io.kestra.core.runners.Worker;
 import io.kestra.core.schedulers.AbstractScheduler;
+import io.kestra.core.utils.Await;
 import io.kestra.core.utils.IdUtils;
+import io.kestra.core.utils.Rethrow;
 import io.kestra.core.utils.TestsUtils;
 import io.kestra.jdbc.runner.JdbcScheduler;
 import io.kestra.core.serializers.FileSerde;
@@ -23,17 +26,21 @@ import reactor.core.publisher.Flux;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static io.kestra.plugin.nats.ProduceTest.SOME_HEADER_KEY;
 import static io.kestra.plugin.nats.ProduceTest.SOME_HEADER_VALUE;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class TriggerTest extends NatsTest {
     @Inject
@@ -80,6 +87,87 @@ class TriggerTest extends NatsTest {
         ));
     }
 
+    @Test
+    void continuousConsumeTrigger() throws Exception {
+        String subject = "kestra.continuousTrigger." + UUID.randomUUID();
+        Trigger trigger = Trigger.builder()
+            .id("continuous")
+            .type(Trigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .durableId(Property.of("continuousTrigger" + UUID.randomUUID().toString().replace("-", "")))
+            .pollDuration(Property.of(Duration.ofMillis(100)))
+            .ackMode(Property.of(Consume.AckMode.AFTER_STORE))
+            .dataFormat(Property.of(Consume.DataFormat.STRING))
+            .continuous(Property.of(true))
+            .interval(Duration.ofSeconds(10))
+            .build();
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        // the first evaluation starts the consumer
+        produce(subject, "first");
+        Execution first = evaluateUntilExecution(trigger, context);
+        assertThat(readData(first), contains("first"));
+
+        // the next one only hands over what was spilled in between
+        produce(subject, "second");
+        produce(subject, "third");
+        Execution second = evaluateUntilExecution(trigger, context);
+        assertThat(readData(second), contains("second", "third"));
+
+        assertThat(trigger.evaluate(context.getKey(), context.getValue()).isEmpty(), is(true));
+    }
+
+    @Test
+    void continuousRequiresAfterStore() {
+        Trigger trigger = Trigger.builder()
+            .id("continuous")
+            .type(Trigger.class.getName())
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject("kestra.continuousRequiresAfterStore")
+            .continuous(Property.of(true))
+            .build();
+        Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context = TestsUtils.mockTrigger(runContextFactory, trigger);
+
+        assertThrows(IllegalArgumentException.class, () -> trigger.evaluate(context.getKey(), context.getValue()));
+    }
+
+    private void produce(String subject, String data) throws Exception {
+        Produce.builder()
+            .url("localhost:4222")
+            .username(Property.of("kestra"))
+            .password(Property.of("k3stra"))
+            .subject(subject)
+            .from(Map.of("data", data))
+            .build()
+            .run(runContextFactory.of());
+    }
+
+    private Execution evaluateUntilExecution(Trigger trigger, Map.Entry<ConditionContext, io.kestra.core.models.triggers.Trigger> context) throws Exception {
+        AtomicReference<Execution> execution = new AtomicReference<>();
+        Await.until(
+            Rethrow.throwSupplier(() -> {
+                trigger.evaluate(context.getKey(), context.getValue()).ifPresent(execution::set);
+                return execution.get() != null;
+            }),
+            Duration.ofMillis(200),
+            Duration.ofSeconds(10)
+        );
+        return execution.get();
+    }
+
+    private List<Object> readData(Execution execution) throws Exception {
+        List<Object> data = new ArrayList<>();
+        try (BufferedReader inputStream = new BufferedReader(new InputStreamReader(storageInterface.get(null, null, URI.create((String) execution.getTrigger().getVariables().get("uri")))))) {
+            FileSerde.reader(inputStream, r -> data.add(((Map<String, Object>) r).get("data")));
+        }
+        return data;
+    }
+
     protected Execution triggerFlow() throws Exception {
         // mock flow listeners
         CountDownLatch queueCount = new CountDownLatch(1);
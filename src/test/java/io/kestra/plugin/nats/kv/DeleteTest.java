@@ -51,6 +51,75 @@ public class DeleteTest {
 		assertThat(getOutput.getOutput(), anEmptyMap());
 	}
 
+	@Test
+	public void deletePairsInBulk() throws Exception {
+		String bucket = createBucket();
+		List<String> keys = new ArrayList<>(putPair(bucket).keySet());
+
+		Delete.Output deleteOutput = Delete.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(keys))
+			.bulk(Property.of(true))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(deleteOutput.getCount(), is(3L));
+
+		Get.Output getOutput = Get.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(keys))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(getOutput.getOutput(), anEmptyMap());
+	}
+
+	@Test
+	public void purgePairsByFilter() throws Exception {
+		String bucket = createBucket();
+
+		Put.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.values(Property.of(Map.of(
+				"tenant1.key1", "value1",
+				"tenant1.key2", "value2",
+				"tenant2.key1", "value3"
+			)))
+			.build()
+			.run(runContextFactory.of());
+
+		Delete.Output deleteOutput = Delete.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keyFilter(Property.of("tenant1.>"))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(deleteOutput.getCount(), is(2L));
+
+		Get.Output getOutput = Get.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(List.of("tenant1.key1", "tenant1.key2", "tenant2.key1")))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(getOutput.getOutput(), is(Map.of("tenant2.key1", "value3")));
+	}
+
 	public Map<String, Object> putPair(String bucket) throws Exception {
 		Map<String, Object> keyValuePair = Map.of(
 			"key1", "value1",
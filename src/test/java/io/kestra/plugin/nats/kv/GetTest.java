@@ -2,13 +2,19 @@ package io.kestra.plugin.nats.kv;
 
 import io.kestra.core.junit.annotations.KestraTest;
 import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
 import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.utils.IdUtils;
 import jakarta.inject.Inject;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -57,6 +63,33 @@ public class GetTest {
 		assertThat(result, Matchers.hasEntry("key3", subMap));
 	}
 
+	@Test
+	public void getManyPairsConcurrently() throws Exception {
+		String bucket = createBucket();
+
+		Map<String, Object> keyValuePair = new HashMap<>();
+		for (int i = 0; i < 200; i++) {
+			keyValuePair.put("key" + i, i);
+		}
+
+		putPair(bucket, keyValuePair);
+
+		List<String> keys = new ArrayList<>(keyValuePair.keySet());
+		keys.add("missing");
+
+		Get.Output getOutput = Get.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(keys))
+			.concurrency(Property.of(16))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(getOutput.getOutput(), is(keyValuePair));
+	}
+
 	public void putPair(String bucket, Map<String, Object> keyValuePair) throws Exception {
 		Put.builder()
 			.url("localhost:4222")
@@ -70,6 +103,48 @@ public class GetTest {
 			.run(runContextFactory.of());
 	}
 
+	@Test
+	public void storeMatchingPairs() throws Exception {
+		String bucket = createBucket();
+
+		Put.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.values(Property.of(Map.of(
+				"tenant1.key1", "value1",
+				"tenant1.key2", "value2",
+				"tenant2.key1", "value3"
+			)))
+			.build()
+			.run(runContextFactory.of());
+
+		RunContext runContext = runContextFactory.of();
+		Get.Output getOutput = Get.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(List.of("tenant1.>")))
+			.store(Property.of(true))
+			.build()
+			.run(runContext);
+
+		assertThat(getOutput.getOutput(), nullValue());
+		assertThat(getOutput.getCount(), is(2L));
+
+		Map<String, Object> stored = new HashMap<>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(runContext.storage().getFile(getOutput.getUri())))) {
+			FileSerde.reader(reader, record -> stored.put(
+				(String) ((Map<String, Object>) record).get("key"),
+				((Map<String, Object>) record).get("value")
+			));
+		}
+
+		assertThat(stored, is(Map.of("tenant1.key1", "value1", "tenant1.key2", "value2")));
+	}
+
 	public String createBucket() throws Exception {
 		CreateBucket.Output bucketOutput = CreateBucket.builder()
 			.url("localhost:4222")
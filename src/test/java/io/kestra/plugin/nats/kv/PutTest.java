@@ -2,13 +2,22 @@ package io.kestra.plugin.nats.kv;
 
 import io.kestra.core.junit.annotations.KestraTest;
 import io.kestra.core.models.property.Property;
+import io.kestra.core.runners.RunContext;
 import io.kestra.core.runners.RunContextFactory;
+import io.kestra.core.serializers.FileSerde;
 import io.kestra.core.utils.IdUtils;
 import jakarta.inject.Inject;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -41,6 +50,75 @@ public class PutTest {
 		assertThat(putOutput.getRevisions(), notNullValue());
 	}
 
+	@Test
+	public void putManyPairsInBulk() throws Exception {
+		String bucket = createBucket();
+
+		Map<String, Object> values = IntStream.range(0, 100).boxed()
+			.collect(Collectors.toMap(i -> "key" + i, i -> "value" + i));
+
+		Put.Output putOutput = Put.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.values(Property.of(values))
+			.bulk(Property.of(true))
+			.maxInFlight(Property.of(10))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(putOutput.getRevisions().size(), is(100));
+		assertThat(putOutput.getRevisions().values().stream().distinct().count(), is(100L));
+
+		Get.Output getOutput = Get.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(List.of("key0", "key99")))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(getOutput.getOutput(), is(Map.of("key0", "value0", "key99", "value99")));
+	}
+
+	@Test
+	public void putPairsFromFile() throws Exception {
+		String bucket = createBucket();
+		RunContext runContext = runContextFactory.of();
+
+		File file = File.createTempFile("kv-put-", ".ion");
+		try (OutputStream output = new FileOutputStream(file)) {
+			for (int i = 0; i < 100; i++) {
+				FileSerde.write(output, Map.of("key", "key" + i, "value", Map.of("index", i)));
+			}
+		}
+		URI uri = runContext.storage().putFile(file);
+
+		Put.Output putOutput = Put.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.from(Property.of(uri.toString()))
+			.build()
+			.run(runContext);
+
+		assertThat(putOutput.getCount(), is(100L));
+
+		Get.Output getOutput = Get.builder()
+			.url("localhost:4222")
+			.username(Property.of("kestra"))
+			.password(Property.of("k3stra"))
+			.bucketName(bucket)
+			.keys(Property.of(List.of("key42")))
+			.build()
+			.run(runContextFactory.of());
+
+		assertThat(getOutput.getOutput(), is(Map.of("key42", Map.of("index", 42))));
+	}
+
 	public String createBucket() throws Exception {
 		CreateBucket.Output bucketOutput = CreateBucket.builder()
 			.url("localhost:4222")